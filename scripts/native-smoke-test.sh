@@ -0,0 +1,64 @@
+#!/usr/bin/env bash
+#
+# Smoke test of the native executable against the local PostgreSQL from application.yml.
+# Starts the native binary and then the JVM jar, checks that the main endpoints answer and prints
+# the time until /actuator/health is UP and the resident memory (RSS) after the requests.
+#
+# usage: scripts/native-smoke-test.sh <native-executable> <boot-jar>
+
+set -euo pipefail
+
+NATIVE_BINARY=${1:?native executable}
+BOOT_JAR=${2:?boot jar}
+PORT=${PORT:-9001}
+BASE_URL="http://localhost:${PORT}"
+ENDPOINTS=(
+    "/persons"
+    "/persons/with-notes-count"
+    "/notes?size=10"
+    "/notes/all/using-generic-dto"
+    "/notes/all/using-generic-dto-pageable?size=5"
+)
+
+now_ms() {
+    date +%s%3N
+}
+
+run() {
+    local name=$1
+    shift
+    local start
+    start=$(now_ms)
+    "$@" --server.port="${PORT}" > "build/smoke-${name}.log" 2>&1 &
+    local pid=$!
+    trap 'kill ${pid} 2>/dev/null || true' EXIT
+
+    until curl -sf "${BASE_URL}/actuator/health" > /dev/null; do
+        if ! kill -0 "${pid}" 2>/dev/null; then
+            echo "${name}: application exited, see build/smoke-${name}.log" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    local startup_ms=$(( $(now_ms) - start ))
+
+    for endpoint in "${ENDPOINTS[@]}"; do
+        local status
+        status=$(curl -s -o /dev/null -w '%{http_code}' "${BASE_URL}${endpoint}")
+        if [[ "${status}" != "200" ]]; then
+            echo "${name}: GET ${endpoint} returned ${status}" >&2
+            exit 1
+        fi
+    done
+    local rss_kb
+    rss_kb=$(ps -o rss= -p "${pid}" | tr -d ' ')
+
+    kill "${pid}"
+    wait "${pid}" 2>/dev/null || true
+    trap - EXIT
+    printf '%-8s startup %6d ms   rss %6d MB\n' "${name}" "${startup_ms}" $(( rss_kb / 1024 ))
+}
+
+mkdir -p build
+run native "${NATIVE_BINARY}"
+run jvm java -jar "${BOOT_JAR}"
@@ -0,0 +1,66 @@
+package com.example.sbdatajpademo.loadtest;
+
+import com.example.sbdatajpademo.dto.NoteDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+/*
+    Compares JSON with the binary encodings offered by BinaryFormatConfig on a large list response.
+    Prints serialization time and bytes per record (raw and gzip-ed, as it would go over the wire with compression).
+    A timing benchmark, so not a part of `test` (the converters are tested in BinaryFormatConfigTests):
+
+        ./gradlew serializationBenchmark
+ */
+public class DtoSerializationBenchmark {
+
+    private static final int RECORDS = 10_000;
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 50;
+
+    private final List<NoteDto> notes = IntStream.range(0, RECORDS)
+            .mapToObj(i -> new NoteDto("Title" + i, "FirstName" + i % 20, "LastName" + i % 15))
+            .toList();
+
+    public static void main(String[] args) throws IOException {
+        DtoSerializationBenchmark benchmark = new DtoSerializationBenchmark();
+        benchmark.measure("json", new ObjectMapper());
+        benchmark.measure("smile", new ObjectMapper(new SmileFactory()));
+        benchmark.measure("cbor", new ObjectMapper(new CBORFactory()));
+    }
+
+    private Result measure(String format, ObjectMapper mapper) throws IOException {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            mapper.writeValueAsBytes(notes);
+        }
+
+        byte[] bytes = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            bytes = mapper.writeValueAsBytes(notes);
+        }
+        long nanosPerRecord = (System.nanoTime() - start) / MEASURED_ITERATIONS / RECORDS;
+
+        Result result = new Result(bytes.length, gzip(bytes).length);
+        System.out.printf("%-6s %6d ns/record %8.2f bytes/record %8.2f gzip bytes/record%n",
+                format, nanosPerRecord, (double) result.bytes() / RECORDS, (double) result.gzipBytes() / RECORDS);
+        return result;
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    private record Result(int bytes, int gzipBytes) {
+    }
+}
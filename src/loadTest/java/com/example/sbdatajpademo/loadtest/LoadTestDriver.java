@@ -0,0 +1,266 @@
+package com.example.sbdatajpademo.loadtest;
+
+import com.example.sbdatajpademo.datagen.NamePool;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+    Closed-model load test of every NoteController/PersonController endpoint against a running application
+    (use the data from DataGenerator):
+
+        ./gradlew loadTest -PloadTestArgs="--duration=60 --threads=32 --max-person-id=1000000"
+
+    Options:
+        --base-url=http://localhost:9001
+        --duration=60                  seconds of measurement, after --warmup=10 seconds
+        --threads=16                   concurrent virtual users, each sends the next request when the previous is done
+        --max-person-id=1000           random person ids are taken from 1..max-person-id
+        --endpoints=name1,name2        only these endpoints (names from the report), all by default
+        --writes=false                 also run create/update/delete requests (they modify data)
+
+    Every request is chosen at random from the enabled endpoints. The report shows for each endpoint the throughput,
+    p50/p99/p99.9 latency and the number of errors (non 2xx, 429/503 from the rate limiter are counted separately).
+ */
+public class LoadTestDriver {
+
+    private static final Pattern ID_PATTERN = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final String baseUrl;
+    private final long maxPersonId;
+    private final List<Scenario> scenarios;
+    private final Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+    private volatile boolean recording;
+
+    private LoadTestDriver(String baseUrl, long maxPersonId, Set<String> endpoints, boolean writes) {
+        this.baseUrl = baseUrl;
+        this.maxPersonId = maxPersonId;
+        this.scenarios = scenarios(writes).stream()
+                .filter(s -> endpoints.isEmpty() || endpoints.contains(s.name()))
+                .toList();
+        this.scenarios.forEach(s -> s.steps().forEach(step -> recorders.put(step, new LatencyRecorder())));
+        if (scenarios.isEmpty()) {
+            throw new IllegalArgumentException("No endpoints selected");
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Map<String, String> options = parse(args);
+        LoadTestDriver driver = new LoadTestDriver(
+                options.getOrDefault("base-url", "http://localhost:9001"),
+                Long.parseLong(options.getOrDefault("max-person-id", "1000")),
+                options.containsKey("endpoints") ? Set.of(options.get("endpoints").split(",")) : Set.of(),
+                Boolean.parseBoolean(options.getOrDefault("writes", "false")));
+
+        driver.run(Integer.parseInt(options.getOrDefault("threads", "16")),
+                Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10"))),
+                Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60"))));
+    }
+
+    private void run(int threads, Duration warmup, Duration duration) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long end = System.nanoTime() + warmup.toNanos() + duration.toNanos();
+        for (int i = 0; i < threads; i++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < end) {
+                    scenarios.get(ThreadLocalRandom.current().nextInt(scenarios.size())).run(this);
+                }
+            });
+        }
+
+        System.out.printf("warmup %d s ...%n", warmup.toSeconds());
+        TimeUnit.NANOSECONDS.sleep(warmup.toNanos());
+        recording = true;
+        System.out.printf("measuring %d s with %d threads ...%n", duration.toSeconds(), threads);
+
+        executor.shutdown();
+        executor.awaitTermination(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        report(duration);
+    }
+
+    private String call(String step, String method, String path, String jsonBody) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Accept", "application/json");
+        if (jsonBody != null) {
+            request.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofString(jsonBody));
+        } else {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+
+        long start = System.nanoTime();
+        int status;
+        String body = null;
+        try {
+            HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            status = response.statusCode();
+            body = response.body();
+        } catch (Exception e) {
+            status = -1;
+        }
+        if (recording) {
+            recorders.get(step).record(System.nanoTime() - start, status);
+        }
+        return status / 100 == 2 ? body : null;
+    }
+
+    private long randomPersonId() {
+        return ThreadLocalRandom.current().nextLong(1, maxPersonId + 1);
+    }
+
+    private static String randomFirstName() {
+        return NamePool.firstName(ThreadLocalRandom.current().nextInt(NamePool.FIRST_NAMES));
+    }
+
+    private static List<Scenario> scenarios(boolean writes) {
+        List<Scenario> scenarios = new ArrayList<>(List.of(
+                get("notes-page", d -> "/notes?size=20&page=" + ThreadLocalRandom.current().nextInt(100)),
+                get("notes-slice", d -> "/notes/using-slice?size=20&page=" + ThreadLocalRandom.current().nextInt(100)),
+                get("notes-all", d -> "/notes/all"),
+                get("notes-all-query-dto", d -> "/notes/all/using-query-with-dto"),
+                get("notes-all-generic-dto", d -> "/notes/all/using-generic-dto"),
+                get("notes-all-only-title", d -> "/notes/all/using-generic-dto-only-title"),
+                get("notes-generic-dto-page", d -> "/notes/all/using-generic-dto-pageable?size=20&page="
+                        + ThreadLocalRandom.current().nextInt(100)),
+                get("notes-changes", d -> "/notes/changes?size=100"),
+                get("persons-all", d -> "/persons"),
+                get("persons-by-first-name", d -> "/persons/byFirstName?firstName=" + randomFirstName()),
+                get("person-by-id", d -> "/persons/" + d.randomPersonId()),
+                get("person-with-notes", d -> "/persons/" + d.randomPersonId() + "/with-notes"),
+                get("persons-by-id-range", d -> {
+                    long from = d.randomPersonId();
+                    return "/persons/by-id-range?personId1=" + from + "&personId2=" + (from + 10);
+                }),
+                get("persons-by-name-without-fetch", d -> "/persons/by-name/without-fetch-notes?firstName=" + randomFirstName()),
+                get("persons-by-name-with-fetch", d -> "/persons/by-name/with-fetch-notes?firstName=" + randomFirstName()),
+                get("persons-with-notes-count", d -> "/persons/with-notes-count"),
+                get("persons-changes", d -> "/persons/changes?size=100")
+        ));
+        if (writes) {
+            scenarios.add(new Scenario("person-lifecycle",
+                    List.of("create-person", "update-person", "add-note", "update-note", "delete-person"),
+                    LoadTestDriver::personLifecycle));
+        }
+        return scenarios;
+    }
+
+    // every write endpoint, only on data created by the scenario itself
+    private static void personLifecycle(LoadTestDriver d) {
+        String person = d.call("create-person", "POST", "/persons",
+                "{\"firstName\":\"" + randomFirstName() + "\",\"lastName\":\"LoadTest\",\"age\":30}");
+        Long personId = extractId(person);
+        if (personId == null) {
+            return;
+        }
+        d.call("update-person", "PUT", "/persons/" + personId,
+                "{\"firstName\":\"" + randomFirstName() + "\",\"lastName\":\"LoadTest\",\"age\":31}");
+        Long noteId = extractId(d.call("add-note", "POST", "/persons/" + personId + "/notes", "{\"title\":\"LoadTest\"}"));
+        if (noteId != null) {
+            d.call("update-note", "PUT", "/notes/" + noteId, "{\"title\":\"LoadTest updated\"}");
+        }
+        d.call("delete-person", "DELETE", "/persons/" + personId, null);
+    }
+
+    private static Long extractId(String json) {
+        if (json == null) {
+            return null;
+        }
+        Matcher matcher = ID_PATTERN.matcher(json);
+        return matcher.find() ? Long.valueOf(matcher.group(1)) : null;
+    }
+
+    private static Scenario get(String name, Function<LoadTestDriver, String> path) {
+        return new Scenario(name, List.of(name), d -> d.call(name, "GET", path.apply(d), null));
+    }
+
+    private void report(Duration duration) {
+        System.out.printf("%n%-32s %10s %10s %10s %10s %8s %8s%n",
+                "endpoint", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "errors", "limited");
+        recorders.forEach((name, recorder) -> System.out.printf("%-32s %10.1f %10.2f %10.2f %10.2f %8d %8d%n",
+                name,
+                recorder.count() / (double) duration.toSeconds(),
+                recorder.percentileMillis(0.50),
+                recorder.percentileMillis(0.99),
+                recorder.percentileMillis(0.999),
+                recorder.errors(),
+                recorder.limited()));
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] keyValue = arg.replaceFirst("^--", "").split("=", 2);
+            options.put(keyValue[0], keyValue.length > 1 ? keyValue[1] : "true");
+        }
+        return options;
+    }
+
+    private record Scenario(String name, List<String> steps, Consumer<LoadTestDriver> action) {
+
+        void run(LoadTestDriver driver) {
+            action.accept(driver);
+        }
+    }
+
+    private static final class LatencyRecorder {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+        private long limited;
+
+        synchronized void record(long nanos, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (status == 429 || status == 503) {
+                limited++;
+            } else if (status / 100 != 2) {
+                errors++;
+            }
+        }
+
+        synchronized int count() {
+            return count;
+        }
+
+        synchronized long errors() {
+            return errors;
+        }
+
+        synchronized long limited() {
+            return limited;
+        }
+
+        synchronized double percentileMillis(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile * count) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000d;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.sbdatajpademo.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+/*
+    Binary encodings for the same Dto/entity responses, selected per request by the `Accept` header:
+
+        Accept: application/json            -> JSON (default, also used when no Accept header is sent)
+        Accept: application/x-jackson-smile -> Smile
+        Accept: application/cbor            -> CBOR
+
+    Both converters are built from the Spring Boot `Jackson2ObjectMapperBuilder`, so they share every customization
+    (modules, spring.jackson.* properties) with the JSON converter and only the wire format differs.
+ */
+@Configuration
+public class BinaryFormatConfig {
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+}
+
+/*
+
+GET http://localhost:9001/notes/all
+Accept: application/x-jackson-smile
+
+###
+GET http://localhost:9001/persons/with-notes-count
+Accept: application/cbor
+Accept-Encoding: gzip
+ */
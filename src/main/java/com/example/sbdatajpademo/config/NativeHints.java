@@ -0,0 +1,88 @@
+package com.example.sbdatajpademo.config;
+
+import com.example.sbdatajpademo.dto.BulkResultDto;
+import com.example.sbdatajpademo.dto.ChangesDto;
+import com.example.sbdatajpademo.dto.KeysetPageDto;
+import com.example.sbdatajpademo.dto.NameSuggestionDto;
+import com.example.sbdatajpademo.dto.NoteChangeDto;
+import com.example.sbdatajpademo.dto.NoteDto;
+import com.example.sbdatajpademo.dto.NoteEventDto;
+import com.example.sbdatajpademo.dto.NoteRequestDto;
+import com.example.sbdatajpademo.dto.NoteRetitleRequestDto;
+import com.example.sbdatajpademo.dto.NoteSummaryDto;
+import com.example.sbdatajpademo.dto.NoteTitleDto;
+import com.example.sbdatajpademo.dto.OutboxEventDto;
+import com.example.sbdatajpademo.dto.PersonChangeDto;
+import com.example.sbdatajpademo.dto.PersonDto;
+import com.example.sbdatajpademo.dto.PersonEventDto;
+import com.example.sbdatajpademo.dto.PersonRequestDto;
+import com.example.sbdatajpademo.dto.PersonSummaryDto;
+import com.example.sbdatajpademo.dto.PersonWithAllNotesDto;
+import com.example.sbdatajpademo.dto.PersonWithNotesDto;
+import com.example.sbdatajpademo.entity.AggregateType;
+import com.example.sbdatajpademo.entity.DeletedRecord;
+import com.example.sbdatajpademo.entity.EventType;
+import com.example.sbdatajpademo.entity.Note;
+import com.example.sbdatajpademo.entity.OutboxEvent;
+import com.example.sbdatajpademo.entity.Person;
+import com.example.sbdatajpademo.query.EstimatedPage;
+import com.example.sbdatajpademo.slowquery.SlowQuery;
+import net.ttddyy.dsproxy.proxy.ProxyJdbcObject;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/*
+    Reachability metadata for the native image, which Spring AOT cannot find by itself:
+
+        - entities: Hibernate and Jackson (entities are returned from controllers) access fields/constructors reflectively
+        - Dto records: `findAllBy(Class<T> type)` creates them through the constructor chosen at runtime and JPQL
+          `select new ...Dto(...)` expressions too, so all constructors have to be available; Jackson needs the accessors
+        - enums stored with @Enumerated(EnumType.STRING) are resolved by name
+        - datasource-proxy (slow query log) wraps connections and statements in JDK proxies
+
+    Hibernate proxies are not generated at runtime at all: entities are bytecode-enhanced at build time
+    (see `hibernate { enhancement }` in build.gradle) and act as their own lazy proxies.
+ */
+public class NativeHints implements RuntimeHintsRegistrar {
+
+    private static final Class<?>[] ENTITIES = {
+            Person.class, Note.class, OutboxEvent.class, DeletedRecord.class, AggregateType.class, EventType.class
+    };
+
+    private static final Class<?>[] DTOS = {
+            NoteDto.class, NoteTitleDto.class, PersonDto.class,
+            NoteRequestDto.class, PersonRequestDto.class,
+            NoteEventDto.class, PersonEventDto.class, OutboxEventDto.class,
+            NoteChangeDto.class, PersonChangeDto.class, ChangesDto.class, SlowQuery.class,
+            PersonSummaryDto.class, NoteSummaryDto.class, KeysetPageDto.class, EstimatedPage.class,
+            NameSuggestionDto.class, PersonWithNotesDto.class, BulkResultDto.class, NoteRetitleRequestDto.class,
+            PersonWithAllNotesDto.class, PersonWithAllNotesDto.NoteEntry.class
+    };
+
+    private static final Class<?>[] JDBC_PROXIES = {
+            Connection.class, Statement.class, PreparedStatement.class, CallableStatement.class
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        for (Class<?> entity : ENTITIES) {
+            hints.reflection().registerType(entity, MemberCategory.values());
+        }
+
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), DTOS);
+        for (Class<?> dto : DTOS) {
+            hints.reflection().registerType(dto, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        }
+
+        for (Class<?> jdbcType : JDBC_PROXIES) {
+            hints.proxies().registerJdkProxy(ProxyJdbcObject.class, jdbcType);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.sbdatajpademo.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+
+/*
+    Logs how long the JVM needed until the application was ready to serve requests.
+
+    With `app.startup.exit-on-ready=true` the application stops right after that, which is used by the `cdsArchive`
+    (the archive is written when the JVM exits) and `startupBenchmark` Gradle tasks.
+    The flag is read at runtime and not with @ConditionalOnProperty, because with AOT conditions are evaluated
+    at build time.
+ */
+@Component
+public class StartupTimeReporter implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimeReporter.class);
+
+    @Value("${app.startup.exit-on-ready:false}")
+    private boolean exitOnReady;
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        log.info("Application ready {} ms after JVM start", ManagementFactory.getRuntimeMXBean().getUptime());
+        if (exitOnReady) {
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.sbdatajpademo.config;
+
+import com.example.sbdatajpademo.tenant.TenancyProperties;
+import com.example.sbdatajpademo.tenant.TenantRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/*
+    Replaces the single Hikari pool of Boot with TenantRoutingDataSource. Every pool gets the `spring.datasource`
+    connection and the `spring.datasource.hikari` settings, only the size comes from `tenancy`.
+    Pools are named `tenant-<id>`, their metrics (hikaricp.connections.*) are tagged with `pool`.
+ */
+@Configuration
+@EnableConfigurationProperties(TenancyProperties.class)
+public class TenantDataSourceConfig {
+
+    @Bean
+    public TenantRoutingDataSource dataSource(DataSourceProperties dataSourceProperties, TenancyProperties tenancy,
+                                              Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        Binder binder = Binder.get(environment);
+        return new TenantRoutingDataSource(pool -> {
+            HikariConfig config = new HikariConfig();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(config));
+            config.setJdbcUrl(dataSourceProperties.determineUrl());
+            config.setUsername(dataSourceProperties.determineUsername());
+            config.setPassword(dataSourceProperties.determinePassword());
+            config.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            config.setPoolName("tenant-" + pool);
+            config.setMaximumPoolSize(TenantRoutingDataSource.SYSTEM_POOL.equals(pool)
+                    ? tenancy.getSystemPoolSize()
+                    : tenancy.poolSize(pool));
+            meterRegistry.ifAvailable(registry -> config.setMetricsTrackerFactory(
+                    new MicrometerMetricsTrackerFactory(registry)));
+            return config;
+        });
+    }
+}
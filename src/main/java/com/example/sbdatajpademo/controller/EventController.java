@@ -0,0 +1,52 @@
+package com.example.sbdatajpademo.controller;
+
+import com.example.sbdatajpademo.entity.AggregateType;
+import com.example.sbdatajpademo.sevice.OutboxRelay;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/events")
+@RequiredArgsConstructor
+public class EventController {
+
+    private final OutboxRelay outboxRelay;
+
+    /*
+        Браузер (EventSource) при перепідключенні сам надсилає `Last-Event-ID`, тому клієнт продовжує з того місця,
+        де зупинився. Параметр `offset` - для клієнтів, які зберігають позицію у себе.
+     */
+    @GetMapping(value = "/notes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNoteEvents(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                       @RequestParam(value = "offset", required = false) Long offset) {
+        return outboxRelay.subscribe(AggregateType.NOTE, offset != null ? offset : lastEventId);
+    }
+
+    @GetMapping(value = "/persons", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPersonEvents(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                         @RequestParam(value = "offset", required = false) Long offset) {
+        return outboxRelay.subscribe(AggregateType.PERSON, offset != null ? offset : lastEventId);
+    }
+}
+
+/*
+
+GET http://localhost:9001/events/notes
+Accept: text/event-stream
+
+###
+GET http://localhost:9001/events/notes?offset=0
+Accept: text/event-stream
+
+###
+POST http://localhost:9001/persons/1/notes
+Content-Type: application/json
+
+{"title": "New note"}
+ */
@@ -1,18 +1,36 @@
 package com.example.sbdatajpademo.controller;
 
+import com.example.sbdatajpademo.dto.BulkResultDto;
+import com.example.sbdatajpademo.dto.ChangesDto;
+import com.example.sbdatajpademo.dto.KeysetPageDto;
+import com.example.sbdatajpademo.dto.NoteChangeDto;
 import com.example.sbdatajpademo.dto.NoteDto;
+import com.example.sbdatajpademo.dto.NoteRequestDto;
+import com.example.sbdatajpademo.dto.NoteRetitleRequestDto;
+import com.example.sbdatajpademo.dto.NoteSummaryDto;
 import com.example.sbdatajpademo.dto.NoteTitleDto;
 import com.example.sbdatajpademo.entity.Note;
+import com.example.sbdatajpademo.query.CountMode;
 import com.example.sbdatajpademo.repository.NoteRepository;
+import com.example.sbdatajpademo.sevice.NoteBulkService;
 import com.example.sbdatajpademo.sevice.NoteService;
+import com.example.sbdatajpademo.sevice.QueryService;
+import com.example.sbdatajpademo.sevice.SyncService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.Instant;
 import java.util.List;
 
 @RestController
@@ -24,12 +42,21 @@ public class NoteController {
 
     private final NoteService noteService;
 
+    private final SyncService syncService;
+
+    private final QueryService queryService;
+
+    private final NoteBulkService noteBulkService;
+
     // for example, we do not need only object Note itself, we need only some fields from this entity and some from another
     //    public List<Note> getAllNotes() {
 
+/*
+    GET http://localhost:9001/notes?size=20&page=3&count=estimated
+ */
     @GetMapping
-    public Page<Note> findAllNotes(Pageable pageable) {
-        return noteRepository.findAll(pageable);
+    public Page<Note> findAllNotes(Pageable pageable, @RequestParam(value = "count", defaultValue = "exact") String count) {
+        return noteService.findAllNotes(pageable, CountMode.of(count));
     }
 
     @GetMapping("/using-slice")
@@ -64,10 +91,63 @@ public class NoteController {
 
 /*
     GET http://localhost:9001/notes/all/using-generic-dto-pageable?size=5&page3
+    GET http://localhost:9001/notes/all/using-generic-dto-pageable?size=5&page3&count=estimated
  */
     @GetMapping("/all/using-generic-dto-pageable")
-    public Page<NoteDto> getAllNotesUsingQueryWithGenericDtoPageable(Pageable pageable) {
-        return noteService.getAllNotesUsingQueryWithGenericDtoPageable(pageable);
+    public Page<NoteDto> getAllNotesUsingQueryWithGenericDtoPageable(Pageable pageable,
+                                                                     @RequestParam(value = "count", defaultValue = "exact") String count) {
+        return noteService.getAllNotesUsingQueryWithGenericDtoPageable(pageable, CountMode.of(count));
+    }
+
+/*
+    GET http://localhost:9001/notes/changes?since=2024-01-01T00:00:00Z&afterId=0&size=100
+ */
+    @GetMapping("/changes")
+    public ChangesDto<NoteChangeDto> getNoteChanges(@RequestParam(value = "since", required = false) Instant since,
+                                                    @RequestParam(value = "afterId", defaultValue = "0") long afterId,
+                                                    @RequestParam(value = "size", defaultValue = "100") int size) {
+        return syncService.getNoteChanges(since != null ? since : Instant.EPOCH, afterId, size);
+    }
+
+/*
+    GET http://localhost:9001/notes/query?titlePrefix=Title1&size=50
+    GET http://localhost:9001/notes/query?sort=title,desc&cursor=...
+ */
+    @GetMapping("/query")
+    public KeysetPageDto<NoteSummaryDto> queryNotes(@RequestParam(value = "titlePrefix", required = false) String titlePrefix,
+                                                    @RequestParam(value = "sort", required = false) String sort,
+                                                    @RequestParam(value = "cursor", required = false) String cursor,
+                                                    @RequestParam(value = "size", defaultValue = "20") int size) {
+        return queryService.queryNotes(titlePrefix, sort, cursor, size);
+    }
+
+    @PutMapping("/{noteId}")
+    public Note updateNote(@PathVariable Long noteId, @RequestBody NoteRequestDto request) {
+        return noteService.updateNote(noteId, request);
+    }
+
+    @DeleteMapping("/{noteId}")
+    public void deleteNote(@PathVariable Long noteId) {
+        noteService.deleteNote(noteId);
+    }
+
+/*
+    DELETE http://localhost:9001/notes?olderThan=2024-01-01T00:00:00Z
+
+    PATCH http://localhost:9001/notes/retitle
+    Content-Type: application/json
+
+    {"prefix": "Title", "replacement": "Note"}
+ */
+    // нотатки, які не змінювались з `olderThan`; без параметра запит відхиляється, а не видаляє все
+    @DeleteMapping
+    public BulkResultDto deleteNotesOlderThan(@RequestParam("olderThan") Instant olderThan) {
+        return noteBulkService.deleteNotesOlderThan(olderThan);
+    }
+
+    @PatchMapping("/retitle")
+    public BulkResultDto retitleNotes(@RequestBody NoteRetitleRequestDto request) {
+        return noteBulkService.retitleNotes(request);
     }
 }
 
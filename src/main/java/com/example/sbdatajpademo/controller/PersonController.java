@@ -1,19 +1,42 @@
 package com.example.sbdatajpademo.controller;
 
+import com.example.sbdatajpademo.dto.BulkResultDto;
+import com.example.sbdatajpademo.dto.ChangesDto;
+import com.example.sbdatajpademo.dto.KeysetPageDto;
+import com.example.sbdatajpademo.dto.NameSuggestionDto;
+import com.example.sbdatajpademo.dto.NoteRequestDto;
+import com.example.sbdatajpademo.dto.PersonChangeDto;
 import com.example.sbdatajpademo.dto.PersonDto;
+import com.example.sbdatajpademo.dto.PersonRequestDto;
+import com.example.sbdatajpademo.dto.PersonSummaryDto;
+import com.example.sbdatajpademo.dto.PersonWithAllNotesDto;
+import com.example.sbdatajpademo.dto.PersonWithNotesDto;
 import com.example.sbdatajpademo.entity.Note;
 import com.example.sbdatajpademo.entity.Person;
 import com.example.sbdatajpademo.repository.PersonRepository;
+import com.example.sbdatajpademo.sevice.NoteBulkService;
+import com.example.sbdatajpademo.sevice.PersonNameIndex;
+import com.example.sbdatajpademo.sevice.PersonNotesService;
+import com.example.sbdatajpademo.sevice.PersonService;
+import com.example.sbdatajpademo.sevice.QueryService;
+import com.example.sbdatajpademo.sevice.SyncService;
 import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Random;
 
@@ -24,6 +47,18 @@ public class PersonController {
 
     private final PersonRepository personRepository;
 
+    private final PersonService personService;
+
+    private final SyncService syncService;
+
+    private final QueryService queryService;
+
+    private final PersonNameIndex personNameIndex;
+
+    private final PersonNotesService personNotesService;
+
+    private final NoteBulkService noteBulkService;
+
     @GetMapping
     public List<Person> getAllPersons() {
         return personRepository.findAll();
@@ -41,8 +76,8 @@ public class PersonController {
     }
 
     @GetMapping("/{personId}/with-notes")
-    public Person getPersonByIdFetchNotes(@PathVariable Long personId) {
-        return personRepository.findByIdFetchNotes(personId);
+    public PersonWithAllNotesDto getPersonByIdFetchNotes(@PathVariable Long personId) {
+        return personService.getPersonByIdFetchNotes(personId);
     }
 
     @GetMapping("/by-id-range")
@@ -50,6 +85,32 @@ public class PersonController {
         return personRepository.findAllByIdBetweenFetchNotes(personId1, personId2);
     }
 
+    /*
+        Обмежені варіанти двох попередніх ендпоінтів: `with-notes` і `by-id-range` тягнуть в пам'ять всі нотатки персони,
+        тут - не більше `limit` останніх нотаток на персону (hasMoreNotes = є старіші) і не більше 100 персон.
+
+        GET http://localhost:9001/persons/1/with-latest-notes?limit=20
+        GET http://localhost:9001/persons/by-id-range/with-latest-notes?personId1=1&personId2=50&limit=5
+     */
+    @GetMapping("/{personId}/with-latest-notes")
+    public PersonWithNotesDto getPersonWithLatestNotes(@PathVariable Long personId,
+                                                       @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return personNotesService.getPersonWithLatestNotes(personId, limit);
+    }
+
+    @GetMapping("/by-id-range/with-latest-notes")
+    public List<PersonWithNotesDto> getPersonsByIdRangeWithLatestNotes(@RequestParam("personId1") long personId1,
+                                                                       @RequestParam("personId2") long personId2,
+                                                                       @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        return personNotesService.getPersonsWithLatestNotes(personId1, personId2, limit);
+    }
+
+    // всі нотатки персони як JSON масив, який пишеться у відповідь порціями прямо з курсора БД
+    @GetMapping(value = "/{personId}/notes/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public StreamingResponseBody streamNotes(@PathVariable Long personId) {
+        return personNotesService.streamNotes(personId);
+    }
+
     /*
          Якщо ми використовуємо метод `findAllByFirstName` з інтерфейсу `PersonRepository`, то для кожного персону буде
          виконуватись окремий запит до бази даних для отримання його нотаток. Це може призвести до проблем з продуктивністю,
@@ -71,7 +132,76 @@ public class PersonController {
 
     @GetMapping("/with-notes-count")
     public List<PersonDto> findAllWithNotesCount() {
-        return personRepository.findAllWithNotesCount();
+        return personService.findAllWithNotesCount();
+    }
+
+    /*
+        Мобільні клієнти замість повторного завантаження всіх персон забирають лише зміни після свого курсора
+        (since, afterId), включно з видаленими записами (deleted = true).
+     */
+    @GetMapping("/changes")
+    public ChangesDto<PersonChangeDto> getPersonChanges(@RequestParam(value = "since", required = false) Instant since,
+                                                        @RequestParam(value = "afterId", defaultValue = "0") long afterId,
+                                                        @RequestParam(value = "size", defaultValue = "100") int size) {
+        return syncService.getPersonChanges(since != null ? since : Instant.EPOCH, afterId, size);
+    }
+
+    /*
+        Один фільтр (firstName, lastName або ageFrom/ageTo) і сортування по тому ж полю, бо тільки так запит іде по
+        індексу (поле, id); наступна сторінка - з тими ж параметрами і cursor=nextCursor.
+
+        GET http://localhost:9001/persons/query?ageFrom=20&ageTo=30&sort=age,desc&size=50
+        GET http://localhost:9001/persons/query?lastName=Smith
+     */
+    @GetMapping("/query")
+    public KeysetPageDto<PersonSummaryDto> queryPersons(@RequestParam(value = "firstName", required = false) String firstName,
+                                                        @RequestParam(value = "lastName", required = false) String lastName,
+                                                        @RequestParam(value = "ageFrom", required = false) Integer ageFrom,
+                                                        @RequestParam(value = "ageTo", required = false) Integer ageTo,
+                                                        @RequestParam(value = "sort", required = false) String sort,
+                                                        @RequestParam(value = "cursor", required = false) String cursor,
+                                                        @RequestParam(value = "size", defaultValue = "20") int size) {
+        return queryService.queryPersons(firstName, lastName, ageFrom, ageTo, sort, cursor, size);
+    }
+
+    /*
+        Підказки імен (first/last name) за префіксом з індексу в пам'яті, без запиту до БД.
+
+        GET http://localhost:9001/persons/autocomplete?prefix=jo&limit=10
+     */
+    @GetMapping("/autocomplete")
+    public List<NameSuggestionDto> autocomplete(@RequestParam("prefix") String prefix,
+                                                @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return personNameIndex.suggest(prefix, limit);
+    }
+
+    @PostMapping
+    public Person createPerson(@RequestBody PersonRequestDto request) {
+        return personService.createPerson(request);
+    }
+
+    @PutMapping("/{personId}")
+    public Person updatePerson(@PathVariable Long personId, @RequestBody PersonRequestDto request) {
+        return personService.updatePerson(personId, request);
+    }
+
+    @DeleteMapping("/{personId}")
+    public void deletePerson(@PathVariable Long personId) {
+        personService.deletePerson(personId);
+    }
+
+/*
+    DELETE http://localhost:9001/persons/1/notes
+ */
+    // всі нотатки однієї особи пачками по `bulk.batch-size`, без завантаження Person.notes
+    @DeleteMapping("/{personId}/notes")
+    public BulkResultDto deleteNotes(@PathVariable Long personId) {
+        return noteBulkService.deleteNotesOfPerson(personId);
+    }
+
+    @PostMapping("/{personId}/notes")
+    public Note addNote(@PathVariable Long personId, @RequestBody NoteRequestDto request) {
+        return personService.addNote(personId, request);
     }
 
 //    @PostConstruct
@@ -0,0 +1,113 @@
+package com.example.sbdatajpademo.datagen;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+
+/*
+    Replacement for the random `init()` in PersonController for large volumes:
+
+        ./gradlew bootRun --args='--spring.profiles.active=datagen --datagen.persons=1000000 --datagen.notes=20000000'
+
+    Rows are written with plain JDBC batches (no persistence context, rewritten into multi-row inserts by the driver,
+    see application-datagen.yml), notes are assigned to persons with a Zipf distribution. The application stops when
+    the data is generated. All rows belong to `datagen.tenant`.
+ */
+@Component
+@Profile("datagen")
+@RequiredArgsConstructor
+@EnableConfigurationProperties(DataGeneratorProperties.class)
+public class DataGenerator implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(DataGenerator.class);
+
+    private static final String INSERT_PERSON =
+            "insert into persons (tenant_id, first_name, last_name, age, updated_at) values (?, ?, ?, ?, ?)";
+
+    // note ids come from the same sequence as Hibernate uses, so entities saved later do not collide with them
+    private static final String INSERT_NOTE =
+            "insert into note (id, tenant_id, title, person_id, updated_at) values (nextval('note_seq'), ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final DataGeneratorProperties properties;
+
+    private final ConfigurableApplicationContext context;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        SplittableRandom random = new SplittableRandom(properties.getSeed());
+        long start = System.nanoTime();
+
+        Long lastExistingPersonId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from persons", Long.class);
+        insertPersons(random);
+        long[] personIds = findPersonIdsAfter(lastExistingPersonId);
+        insertNotes(random, personIds);
+
+        log.info("Generated {} persons and {} notes in {} s", personIds.length, properties.getNotes(),
+                (System.nanoTime() - start) / 1_000_000_000);
+        System.exit(SpringApplication.exit(context));
+    }
+
+    private void insertPersons(SplittableRandom random) {
+        Timestamp now = Timestamp.from(Instant.now());
+        int total = properties.getPersons();
+        for (int from = 0; from < total; from += properties.getBatchSize()) {
+            int size = Math.min(properties.getBatchSize(), total - from);
+            List<Object[]> rows = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                rows.add(new Object[]{
+                        properties.getTenant(),
+                        NamePool.firstName(random.nextInt(NamePool.FIRST_NAMES)),
+                        NamePool.lastName(random.nextInt(NamePool.LAST_NAMES)),
+                        18 + random.nextInt(60),
+                        now
+                });
+            }
+            jdbcTemplate.batchUpdate(INSERT_PERSON, rows);
+            log.info("persons: {}/{}", from + size, total);
+        }
+    }
+
+    private long[] findPersonIdsAfter(long personId) {
+        LongStream.Builder ids = LongStream.builder();
+        jdbcTemplate.query("select id from persons where id > ? and tenant_id = ? order by id",
+                (RowCallbackHandler) rs -> ids.add(rs.getLong(1)), personId, properties.getTenant());
+        return ids.build().toArray();
+    }
+
+    private void insertNotes(SplittableRandom random, long[] personIds) {
+        if (personIds.length == 0) {
+            return;
+        }
+        ZipfDistribution notesPerPerson = new ZipfDistribution(personIds.length, properties.getZipfExponent());
+        Timestamp now = Timestamp.from(Instant.now());
+        long total = properties.getNotes();
+        for (long from = 0; from < total; from += properties.getBatchSize()) {
+            int size = (int) Math.min(properties.getBatchSize(), total - from);
+            List<Object[]> rows = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                rows.add(new Object[]{properties.getTenant(), "Title" + (from + i),
+                        personIds[notesPerPerson.sample(random)], now});
+            }
+            jdbcTemplate.batchUpdate(INSERT_NOTE, rows);
+            log.info("notes: {}/{}", from + size, total);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.sbdatajpademo.datagen;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "datagen")
+public class DataGeneratorProperties {
+
+    private int persons = 1_000_000;
+
+    private long notes = 10_000_000;
+
+    // skew of notes per person, 0 - uniform, ~1 - a few persons own most of the notes
+    private double zipfExponent = 1.0;
+
+    private int batchSize = 5_000;
+
+    private long seed = 42;
+
+    // tenant of the generated persons and notes
+    private String tenant = "default";
+}
@@ -0,0 +1,28 @@
+package com.example.sbdatajpademo.datagen;
+
+/*
+    Deterministic names used by the data generator, so that the load test can query names which really exist
+    without reading them from the database first.
+ */
+public final class NamePool {
+
+    public static final int FIRST_NAMES = 1000;
+    public static final int LAST_NAMES = 5000;
+
+    private static final String[] FIRST_NAME_BASES = {"John", "Jane", "Michael", "Emily", "David"};
+    private static final String[] LAST_NAME_BASES = {"Smith", "Johnson", "Williams", "Jones", "Brown", "Davis",
+            "Miller", "Wilson", "Moore", "Taylor", "Anderson", "Thomas", "Jackson", "White", "Harris"};
+
+    private NamePool() {
+    }
+
+    public static String firstName(int index) {
+        int i = Math.floorMod(index, FIRST_NAMES);
+        return FIRST_NAME_BASES[i % FIRST_NAME_BASES.length] + i;
+    }
+
+    public static String lastName(int index) {
+        int i = Math.floorMod(index, LAST_NAMES);
+        return LAST_NAME_BASES[i % LAST_NAME_BASES.length] + i;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.sbdatajpademo.datagen;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/*
+    Zipf distribution over ranks 0..n-1: P(k) ~ 1 / (k + 1)^exponent.
+    With exponent ~1 a few persons get a large share of all notes and most persons only a few, as in real data.
+
+    Sampling is an inverse-CDF lookup (binary search), the table takes 8 bytes per rank.
+ */
+public class ZipfDistribution {
+
+    private final double[] cdf;
+
+    public ZipfDistribution(int n, double exponent) {
+        cdf = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1 / Math.pow(k + 1, exponent);
+            cdf[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cdf[k] /= sum;
+        }
+    }
+
+    public int sample(RandomGenerator random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cdf.length - 1);
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.sbdatajpademo.dto;
+
+/*
+    Result of a bulk delete/update: rows changed by all committed batches together.
+    Batches are separate transactions, after a failure the rows of the committed batches stay changed.
+ */
+public record BulkResultDto(long affectedRows, int batches) {
+}
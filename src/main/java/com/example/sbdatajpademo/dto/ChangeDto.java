@@ -0,0 +1,13 @@
+package com.example.sbdatajpademo.dto;
+
+import java.time.Instant;
+
+// common part of PersonChangeDto/NoteChangeDto, (changedAt, id) is the keyset of the sync API
+public interface ChangeDto {
+
+    Long id();
+
+    Instant changedAt();
+
+    boolean deleted();
+}
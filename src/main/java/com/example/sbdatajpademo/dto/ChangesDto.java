@@ -0,0 +1,11 @@
+package com.example.sbdatajpademo.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/*
+    One page of changes; to get the next one pass `nextSince`/`nextAfterId` back as `since`/`afterId`.
+    When `hasMore` is false the client is in sync and keeps the cursor for the next poll.
+ */
+public record ChangesDto<T extends ChangeDto>(List<T> changes, Instant nextSince, Long nextAfterId, boolean hasMore) {
+}
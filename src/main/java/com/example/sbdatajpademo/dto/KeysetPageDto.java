@@ -0,0 +1,10 @@
+package com.example.sbdatajpademo.dto;
+
+import java.util.List;
+
+/*
+    One page of /persons/query or /notes/query; the next page is requested with the same filters and sort
+    and `cursor=nextCursor`. There is no total count, counting would scan everything the filter matches.
+ */
+public record KeysetPageDto<T>(List<T> content, String nextCursor, boolean hasMore) {
+}
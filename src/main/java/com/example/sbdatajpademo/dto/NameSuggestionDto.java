@@ -0,0 +1,5 @@
+package com.example.sbdatajpademo.dto;
+
+// one suggestion of /persons/autocomplete and how many persons have it as the first/last name
+public record NameSuggestionDto(String name, int firstNameCount, int lastNameCount) {
+}
@@ -0,0 +1,16 @@
+package com.example.sbdatajpademo.dto;
+
+import java.time.Instant;
+
+public record NoteChangeDto(Long id, String title, Long personId, Instant changedAt,
+                            boolean deleted) implements ChangeDto {
+
+    // used by the JPQL constructor expression for rows that still exist
+    public NoteChangeDto(Long id, String title, Long personId, Instant changedAt) {
+        this(id, title, personId, changedAt, false);
+    }
+
+    public static NoteChangeDto tombstone(Long id, Instant deletedAt) {
+        return new NoteChangeDto(id, null, null, deletedAt, true);
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.sbdatajpademo.dto;
+
+public record NoteRequestDto(String title) {
+}
@@ -0,0 +1,5 @@
+package com.example.sbdatajpademo.dto;
+
+// titles starting with `prefix` get `replacement` instead of it
+public record NoteRetitleRequestDto(String prefix, String replacement) {
+}
@@ -0,0 +1,4 @@
+package com.example.sbdatajpademo.dto;
+
+public record NoteSummaryDto(Long id, String title, Long personId) {
+}
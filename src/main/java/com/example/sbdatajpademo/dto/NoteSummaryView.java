@@ -0,0 +1,11 @@
+package com.example.sbdatajpademo.dto;
+
+// interface projection for native queries, which cannot create records (see NoteRepository.findLatestByPersonIds)
+public interface NoteSummaryView {
+
+    Long getId();
+
+    String getTitle();
+
+    Long getPersonId();
+}
@@ -0,0 +1,17 @@
+package com.example.sbdatajpademo.dto;
+
+import com.example.sbdatajpademo.entity.AggregateType;
+import com.example.sbdatajpademo.entity.EventType;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+
+public record OutboxEventDto(Long position,
+                             @JsonIgnore String tenantId,
+                             AggregateType aggregateType,
+                             Long aggregateId,
+                             EventType eventType,
+                             @JsonRawValue String payload,
+                             Instant createdAt) {
+}
@@ -0,0 +1,16 @@
+package com.example.sbdatajpademo.dto;
+
+import java.time.Instant;
+
+public record PersonChangeDto(Long id, String firstName, String lastName, Integer age, Instant changedAt,
+                              boolean deleted) implements ChangeDto {
+
+    // used by the JPQL constructor expression for rows that still exist
+    public PersonChangeDto(Long id, String firstName, String lastName, Integer age, Instant changedAt) {
+        this(id, firstName, lastName, age, changedAt, false);
+    }
+
+    public static PersonChangeDto tombstone(Long id, Instant deletedAt) {
+        return new PersonChangeDto(id, null, null, null, deletedAt, true);
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.sbdatajpademo.dto;
+
+public record PersonEventDto(Long id, String firstName, String lastName, Integer age) {
+}
@@ -0,0 +1,4 @@
+package com.example.sbdatajpademo.dto;
+
+public record PersonRequestDto(String firstName, String lastName, Integer age) {
+}
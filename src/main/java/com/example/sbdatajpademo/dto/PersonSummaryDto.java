@@ -0,0 +1,4 @@
+package com.example.sbdatajpademo.dto;
+
+public record PersonSummaryDto(Long id, String firstName, String lastName, Integer age) {
+}
@@ -0,0 +1,15 @@
+package com.example.sbdatajpademo.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/*
+    Person with all of its notes, serialized with the same JSON as the Person entity (without the `person` back
+    reference of the notes), but immutable, so one result can be handed to several threads, see SingleFlight.
+ */
+public record PersonWithAllNotesDto(Long id, String firstName, String lastName, Integer age, Instant updatedAt,
+                                    List<NoteEntry> notes) {
+
+    public record NoteEntry(Long id, String title, Instant updatedAt) {
+    }
+}
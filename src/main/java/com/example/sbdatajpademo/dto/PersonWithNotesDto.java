@@ -0,0 +1,11 @@
+package com.example.sbdatajpademo.dto;
+
+import java.util.List;
+
+/*
+    Person with at most `limit` of its latest notes (by id), `hasMoreNotes` tells whether there are older ones;
+    all of them can be read with /persons/{personId}/notes/stream.
+ */
+public record PersonWithNotesDto(Long id, String firstName, String lastName, Integer age,
+                                 List<NoteSummaryDto> notes, boolean hasMoreNotes) {
+}
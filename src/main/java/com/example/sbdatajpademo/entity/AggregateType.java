@@ -0,0 +1,6 @@
+package com.example.sbdatajpademo.entity;
+
+public enum AggregateType {
+    PERSON,
+    NOTE
+}
@@ -0,0 +1,62 @@
+package com.example.sbdatajpademo.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.TenantId;
+
+import java.time.Instant;
+
+/*
+    Tombstone of a deleted Person/Note, so the "changed since" sync API can tell clients what to remove locally.
+ */
+@Entity
+@Table(name = "deleted_record", indexes = {
+        @Index(name = "idx_deleted_record_tenant_deleted_at",
+                columnList = "tenant_id, aggregate_type, deleted_at, aggregate_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class DeletedRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "deleted_record_seq")
+    @SequenceGenerator(name = "deleted_record_seq", sequenceName = "deleted_record_seq", allocationSize = 50)
+    @Column(name = "id", nullable = false)
+    private Long id;
+
+    // set by Hibernate from TenantIdentifierResolver on insert, every query gets `tenant_id = ?`
+    @TenantId
+    @Column(name = "tenant_id", nullable = false, updatable = false,
+            columnDefinition = "varchar(64) default 'default' not null")
+    private String tenantId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "aggregate_type", nullable = false)
+    private AggregateType aggregateType;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private Instant deletedAt;
+
+    public DeletedRecord(AggregateType aggregateType, Long aggregateId, Instant deletedAt) {
+        this.aggregateType = aggregateType;
+        this.aggregateId = aggregateId;
+        this.deletedAt = deletedAt;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.sbdatajpademo.entity;
+
+public enum EventType {
+    CREATED,
+    UPDATED,
+    DELETED
+}
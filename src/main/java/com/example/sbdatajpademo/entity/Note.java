@@ -1,11 +1,14 @@
 package com.example.sbdatajpademo.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -14,10 +17,23 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.TenantId;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import java.time.Instant;
 
 
 @Entity
-@Table(name = "note")
+@Table(name = "note", indexes = {
+        // tenant_id first, see Person
+        @Index(name = "idx_note_tenant_updated_at", columnList = "tenant_id, updated_at, id"),
+        // sort key of /notes/query, see KeysetQuery
+        @Index(name = "idx_note_tenant_title", columnList = "tenant_id, title, id"),
+        // latest notes of a person, see NoteRepository.findLatestByPersonIds
+        @Index(name = "idx_note_person_id", columnList = "person_id, id")
+})
+@EntityListeners(AuditingEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -29,9 +45,20 @@ public class Note {
     @Column(name = "id", nullable = false)
     private Long id;
 
+    // set by Hibernate from TenantIdentifierResolver on insert, every query gets `tenant_id = ?`
+    @TenantId
+    @JsonIgnore
+    @Column(name = "tenant_id", nullable = false, updatable = false,
+            columnDefinition = "varchar(64) default 'default' not null")
+    private String tenantId;
+
     @Column(name = "title", nullable = false)
     private String title;
 
+    @LastModifiedDate
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
     @JsonBackReference // only for test purpose when we work in controller with entities
     @ManyToOne(optional = false)
     @JoinColumn(name = "person_id")
@@ -1,13 +1,16 @@
 package com.example.sbdatajpademo.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import lombok.EqualsAndHashCode;
@@ -15,13 +18,25 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.TenantId;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 
 @Entity
-@Table(name = "persons")
+@Table(name = "persons", indexes = {
+        // every query of a tenant starts with `tenant_id = ?`, so it is the first column of every index
+        @Index(name = "idx_persons_tenant_updated_at", columnList = "tenant_id, updated_at, id"),
+        // sort keys of /persons/query, see KeysetQuery
+        @Index(name = "idx_persons_tenant_first_name", columnList = "tenant_id, first_name, id"),
+        @Index(name = "idx_persons_tenant_last_name", columnList = "tenant_id, last_name, id"),
+        @Index(name = "idx_persons_tenant_age", columnList = "tenant_id, age, id")
+})
+@EntityListeners(AuditingEntityListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -33,6 +48,13 @@ public class Person {
     @Column(name = "id", nullable = false)
     private Long id;
 
+    // set by Hibernate from TenantIdentifierResolver on insert, every query gets `tenant_id = ?`
+    @TenantId
+    @JsonIgnore
+    @Column(name = "tenant_id", nullable = false, updatable = false,
+            columnDefinition = "varchar(64) default 'default' not null")
+    private String tenantId;
+
     @Column(name = "first_name")
     private String firstName;
 
@@ -42,6 +64,10 @@ public class Person {
     @Column(name = "age")
     private Integer age;
 
+    @LastModifiedDate
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
     // added EAGER only for init method in controller to randomly add Note to Person with id from 1 to 10
     // only one time to add data to DB
     @JsonManagedReference // only for test purpose when we work in controller with entities
@@ -1,7 +1,10 @@
 package com.example.sbdatajpademo.exception;
 
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectRetrievalFailureException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 @RestControllerAdvice
@@ -12,6 +15,19 @@ public class GlobalExceptionHandler {
         return ex.getMessage();
     }
 
+    // EntityNotFoundException thrown inside a repository call (e.g. by TenantLoadGuard) and translated by Spring
+    @ExceptionHandler(ObjectRetrievalFailureException.class)
+    public String handleObjectRetrievalFailureException(ObjectRetrievalFailureException ex) {
+        return ex.getMessage();
+    }
+
+    // invalid query parameters, e.g. a filter/sort combination rejected by KeysetQuery
+    @ExceptionHandler(InvalidQueryException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String handleInvalidQueryException(InvalidQueryException ex) {
+        return ex.getMessage();
+    }
+
     @ExceptionHandler(Exception.class)
     public String handleException(Exception ex) {
         return ex.getMessage();
@@ -0,0 +1,17 @@
+package com.example.sbdatajpademo.exception;
+
+/*
+    Request parameters which cannot be turned into a query: an unsupported filter/sort combination, a broken cursor,
+    an empty range etc. The only exception answered with 400, see GlobalExceptionHandler - an
+    IllegalArgumentException from a library or from our own code is a bug and not a bad request.
+ */
+public class InvalidQueryException extends RuntimeException {
+
+    public InvalidQueryException(String message) {
+        super(message);
+    }
+
+    public InvalidQueryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.sbdatajpademo.limiter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+    Latency-gradient concurrency limit (the idea of Netflix concurrency-limits "Gradient").
+
+    The limiter remembers the best (minimal) latency it has seen recently, which is the latency without queueing in
+    the database. After every request:
+
+        gradient = clamp(minRtt / smoothedRtt, 0.5, 1.0)
+        newLimit = limit * gradient + sqrt(limit)
+
+    While latency stays near the minimum the limit keeps growing by sqrt(limit); as soon as requests start to wait
+    for connections/locks the gradient drops below 1 and the limit shrinks, so the endpoint gets fewer concurrent
+    requests instead of taking over the whole connection pool. minRtt is forgotten every `MIN_RTT_WINDOW` samples
+    so that the limiter can adapt when the "normal" latency changes (e.g. the table has grown).
+
+    Requests above the limit wait up to `maxQueueTime` for a free slot and are rejected afterwards.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final int MIN_RTT_WINDOW = 1000;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long maxQueueNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition slotReleased = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private long minRttNanos;
+    private double smoothedRttNanos;
+    private int samples;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long maxQueueNanos) {
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueueNanos = maxQueueNanos;
+    }
+
+    public Permit tryAcquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return Permit.ACQUIRED;
+            }
+            long remaining = maxQueueNanos;
+            while (inFlight >= (int) limit) {
+                if (remaining <= 0) {
+                    return Permit.REJECTED;
+                }
+                remaining = slotReleased.awaitNanos(remaining);
+            }
+            inFlight++;
+            return Permit.ACQUIRED_AFTER_QUEUEING;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release(long rttNanos) {
+        lock.lock();
+        try {
+            inFlight--;
+            update(rttNanos);
+            slotReleased.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(long rttNanos) {
+        if (++samples >= MIN_RTT_WINDOW) {
+            samples = 0;
+            minRttNanos = 0;
+        }
+        if (minRttNanos == 0 || rttNanos < minRttNanos) {
+            minRttNanos = rttNanos;
+        }
+        smoothedRttNanos = smoothedRttNanos == 0 ? rttNanos : smoothedRttNanos * (1 - SMOOTHING) + rttNanos * SMOOTHING;
+
+        double gradient = Math.max(0.5, Math.min(1.0, minRttNanos / smoothedRttNanos));
+        if (gradient == 1.0 && inFlight < limit / 2) {
+            // the endpoint does not use its current limit, so there is nothing to learn about a higher one
+            return;
+        }
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+    }
+
+    public enum Permit {
+        ACQUIRED,
+        ACQUIRED_AFTER_QUEUEING,
+        REJECTED
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.sbdatajpademo.limiter;
+
+import com.example.sbdatajpademo.tenant.TenantFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+    Protects expensive endpoints (configured in `rate-limit.endpoints`) in front of the controllers:
+
+        1. client token bucket   - rate for one client (tenant + X-Client-Id / ip)  -> 429
+        2. endpoint token bucket - total rate for all clients             -> 429
+        3. adaptive concurrency limit per endpoint, see AdaptiveConcurrencyLimiter -> 503
+
+    The client bucket comes first: a client over its own rate must not take tokens of the shared endpoint bucket
+    from the other clients. A request rejected by a later check gets its tokens back, it did not run.
+
+    Every endpoint has its own buckets and its own concurrency limit, so a burst on one endpoint is rejected before it
+    takes all connections from the pool and the other endpoints keep working.
+
+    Metrics: rate_limit.rejected{endpoint, reason}, rate_limit.queued{endpoint},
+             rate_limit.concurrency.limit{endpoint}, rate_limit.concurrency.in_flight{endpoint}
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = RateLimitInterceptor.class.getName() + ".permit";
+    private static final long CLIENT_BUCKET_IDLE_NANOS = Duration.ofMinutes(5).toNanos();
+
+    private final RateLimitProperties properties;
+    private final Map<String, EndpointLimiter> limiters;
+    private final Map<String, TokenBucket> clientBuckets = new ConcurrentHashMap<>();
+
+    public RateLimitInterceptor(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.limiters = properties.getEndpoints().stream()
+                .collect(Collectors.toUnmodifiableMap(RateLimitProperties.Endpoint::getPattern,
+                        endpoint -> new EndpointLimiter(endpoint, properties.getConcurrency(), meterRegistry)));
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
+        if (!properties.isEnabled()) {
+            return true;
+        }
+        EndpointLimiter limiter = findLimiter(request);
+        if (limiter == null) {
+            return true;
+        }
+
+        String clientKey = limiter.endpoint.getPattern() + '|' + clientId(request);
+        TokenBucket clientBucket = clientBuckets.computeIfAbsent(clientKey, k -> limiter.newClientBucket());
+        if (!clientBucket.tryConsume()) {
+            return reject(response, limiter.rejectedByClientRate, HttpStatus.TOO_MANY_REQUESTS);
+        }
+        if (!limiter.bucket.tryConsume()) {
+            clientBucket.refund();
+            return reject(response, limiter.rejectedByEndpointRate, HttpStatus.TOO_MANY_REQUESTS);
+        }
+
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.concurrencyLimiter.tryAcquire();
+        if (permit == AdaptiveConcurrencyLimiter.Permit.REJECTED) {
+            clientBucket.refund();
+            limiter.bucket.refund();
+            return reject(response, limiter.rejectedByConcurrency, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        if (permit == AdaptiveConcurrencyLimiter.Permit.ACQUIRED_AFTER_QUEUEING) {
+            limiter.queued.increment();
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Long startNanos = (Long) request.getAttribute(PERMIT_ATTRIBUTE);
+        if (startNanos == null) {
+            return;
+        }
+        request.removeAttribute(PERMIT_ATTRIBUTE);
+        findLimiter(request).concurrencyLimiter.release(System.nanoTime() - startNanos);
+    }
+
+    @Scheduled(fixedDelay = 60_000)
+    public void evictIdleClientBuckets() {
+        clientBuckets.values().removeIf(bucket -> bucket.isIdle(CLIENT_BUCKET_IDLE_NANOS));
+    }
+
+    private EndpointLimiter findLimiter(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? limiters.get(pattern.toString()) : null;
+    }
+
+    // the same client id in two tenants is two clients
+    private String clientId(HttpServletRequest request) {
+        String clientId = request.getHeader(properties.getClientHeader());
+        return request.getAttribute(TenantFilter.TENANT_ATTRIBUTE) + "|"
+                + (clientId != null ? clientId : request.getRemoteAddr());
+    }
+
+    private static boolean reject(HttpServletResponse response, Counter counter, HttpStatus status) {
+        counter.increment();
+        response.setStatus(status.value());
+        response.setHeader("Retry-After", "1");
+        return false;
+    }
+
+    private static final class EndpointLimiter {
+
+        private final RateLimitProperties.Endpoint endpoint;
+        private final TokenBucket bucket;
+        private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+        private final Counter rejectedByEndpointRate;
+        private final Counter rejectedByClientRate;
+        private final Counter rejectedByConcurrency;
+        private final Counter queued;
+
+        private EndpointLimiter(RateLimitProperties.Endpoint endpoint, RateLimitProperties.Concurrency concurrency,
+                                MeterRegistry meterRegistry) {
+            this.endpoint = endpoint;
+            this.bucket = new TokenBucket(endpoint.getRate(), endpoint.getBurst());
+            this.concurrencyLimiter = new AdaptiveConcurrencyLimiter(concurrency.getInitialLimit(),
+                    concurrency.getMinLimit(), concurrency.getMaxLimit(), concurrency.getMaxQueueTime().toNanos());
+
+            Function<String, Counter> rejected = reason -> Counter.builder("rate_limit.rejected")
+                    .tag("endpoint", endpoint.getPattern())
+                    .tag("reason", reason)
+                    .register(meterRegistry);
+            this.rejectedByEndpointRate = rejected.apply("endpoint_rate");
+            this.rejectedByClientRate = rejected.apply("client_rate");
+            this.rejectedByConcurrency = rejected.apply("concurrency");
+            this.queued = Counter.builder("rate_limit.queued")
+                    .tag("endpoint", endpoint.getPattern())
+                    .register(meterRegistry);
+            Gauge.builder("rate_limit.concurrency.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit)
+                    .tag("endpoint", endpoint.getPattern())
+                    .register(meterRegistry);
+            Gauge.builder("rate_limit.concurrency.in_flight", concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight)
+                    .tag("endpoint", endpoint.getPattern())
+                    .register(meterRegistry);
+        }
+
+        private TokenBucket newClientBucket() {
+            return new TokenBucket(endpoint.getClientRate(), endpoint.getClientBurst());
+        }
+    }
+}
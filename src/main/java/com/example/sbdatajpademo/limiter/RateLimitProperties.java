@@ -0,0 +1,53 @@
+package com.example.sbdatajpademo.limiter;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // header which identifies a client, the remote address is used when it is missing
+    private String clientHeader = "X-Client-Id";
+
+    private List<Endpoint> endpoints = new ArrayList<>();
+
+    private Concurrency concurrency = new Concurrency();
+
+    @Getter
+    @Setter
+    public static class Endpoint {
+
+        // the same pattern as in @GetMapping, e.g. /persons/{personId}/with-notes
+        private String pattern;
+
+        private double rate;
+
+        private int burst;
+
+        private double clientRate;
+
+        private int clientBurst;
+    }
+
+    @Getter
+    @Setter
+    public static class Concurrency {
+
+        private int initialLimit = 10;
+
+        private int minLimit = 2;
+
+        private int maxLimit = 50;
+
+        private Duration maxQueueTime = Duration.ofMillis(50);
+    }
+}
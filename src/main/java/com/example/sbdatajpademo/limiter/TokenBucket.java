@@ -0,0 +1,58 @@
+package com.example.sbdatajpademo.limiter;
+
+import java.util.function.LongSupplier;
+
+/*
+    Classic token bucket: `capacity` tokens at most (the allowed burst), refilled with `ratePerSecond` tokens per second.
+    Tokens are refilled lazily on every call, so an idle bucket costs nothing.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private final LongSupplier nanoClock;
+
+    private double tokens;
+    private long lastRefillNanos;
+    private long lastUsedNanos;
+
+    public TokenBucket(double ratePerSecond, int capacity) {
+        this(ratePerSecond, capacity, System::nanoTime);
+    }
+
+    TokenBucket(double ratePerSecond, int capacity, LongSupplier nanoClock) {
+        this.capacity = capacity;
+        this.tokensPerNano = ratePerSecond / 1_000_000_000d;
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.lastRefillNanos = nanoClock.getAsLong();
+        this.lastUsedNanos = lastRefillNanos;
+    }
+
+    public synchronized boolean tryConsume() {
+        refill();
+        lastUsedNanos = lastRefillNanos;
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    // gives back a token of a request which was rejected by a later check and did not run
+    public synchronized void refund() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    // a full bucket which was not used for a while can be dropped and created again on the next request
+    public synchronized boolean isIdle(long idleNanos) {
+        refill();
+        return tokens >= capacity && lastRefillNanos - lastUsedNanos >= idleNanos;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+}
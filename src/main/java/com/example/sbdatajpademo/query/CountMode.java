@@ -0,0 +1,23 @@
+package com.example.sbdatajpademo.query;
+
+import com.example.sbdatajpademo.exception.InvalidQueryException;
+
+import java.util.Locale;
+
+// `count` request parameter of Page endpoints
+public enum CountMode {
+
+    // select count(*) on every request
+    EXACT,
+
+    // total from TableCountEstimator, the page has `totalApproximate = true`
+    ESTIMATED;
+
+    public static CountMode of(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidQueryException("Unknown count mode '" + value + "', use exact or estimated", e);
+        }
+    }
+}
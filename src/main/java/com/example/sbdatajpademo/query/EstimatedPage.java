@@ -0,0 +1,45 @@
+package com.example.sbdatajpademo.query;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/*
+    Page whose content is read as a Slice (limit size + 1, no count query) and whose total comes from an estimate.
+    Serialized like any other Page plus `totalApproximate`, so existing clients keep working.
+
+    On the last page the total is known exactly (offset + number of rows) and the estimate is not used.
+    A stale estimate that is smaller than what was already read is raised, so that `hasNext`/`last` stay correct.
+ */
+public class EstimatedPage<T> extends PageImpl<T> {
+
+    private final boolean totalApproximate;
+
+    private EstimatedPage(List<T> content, Pageable pageable, long total, boolean totalApproximate) {
+        super(content, pageable, total);
+        this.totalApproximate = totalApproximate;
+    }
+
+    public static <T> EstimatedPage<T> of(Slice<T> slice, LongSupplier estimatedTotal) {
+        Pageable pageable = slice.getPageable();
+        long offset = pageable.isPaged() ? pageable.getOffset() : 0;
+        long read = offset + slice.getNumberOfElements();
+        if (!slice.hasNext() && (slice.hasContent() || offset == 0)) {
+            return new EstimatedPage<>(slice.getContent(), pageable, read, false);
+        }
+        // a page after the end: there are fewer rows than the offset, but it is not known how many
+        if (!slice.hasContent()) {
+            return new EstimatedPage<>(slice.getContent(), pageable, Math.min(estimatedTotal.getAsLong(), offset), true);
+        }
+        // at least one more row exists
+        long total = Math.max(estimatedTotal.getAsLong(), read + 1);
+        return new EstimatedPage<>(slice.getContent(), pageable, total, true);
+    }
+
+    public boolean isTotalApproximate() {
+        return totalApproximate;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.sbdatajpademo.query;
+
+import com.example.sbdatajpademo.exception.InvalidQueryException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+    Position after the last row of a page: the value of the sort attribute and the id of that row.
+
+    Clients get it as an opaque string (url-safe base64) and send it back unchanged. The sort is a part of it,
+    so a cursor of `sort=age` cannot be used to continue `sort=lastName`.
+ */
+public record KeysetCursor(String sort, String value, long id) {
+
+    public String encode() {
+        String raw = sort + '\n' + id + '\n' + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\n", 3);
+            if (parts.length == 3) {
+                return new KeysetCursor(parts[0], parts[2], Long.parseLong(parts[1]));
+            }
+        } catch (IllegalArgumentException e) {
+            // not base64 or the id is not a number
+            throw new InvalidQueryException("Invalid cursor", e);
+        }
+        throw new InvalidQueryException("Invalid cursor");
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.sbdatajpademo.query;
+
+import com.example.sbdatajpademo.dto.KeysetPageDto;
+import com.example.sbdatajpademo.exception.InvalidQueryException;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/*
+    Filter + sort + keyset position of the /persons/query and /notes/query endpoints, which only accepts what can be
+    answered by an index range scan:
+
+        - every sortable attribute `a` has an index (tenant_id, a, id), the rows are always ordered by (a, id) and
+          @TenantId adds `tenant_id = ?` to every query
+        - a filter is allowed only on the sort attribute (then it is an index condition of the same index),
+          without sort the filtered attribute becomes the sort; two filters are rejected, there is no index for both
+        - no offset: the next page starts after the cursor, `a >= :value and (a > :value or id > :id)`, so the deep
+          pages cost the same as the first one
+
+    Rows with null in the sort attribute are not part of the result (except sort by id), they are not comparable
+    with the cursor. Violations are reported as InvalidQueryException -> 400.
+
+    E - entity, T - projection returned to the client
+ */
+public final class KeysetQuery<E, T> {
+
+    public static final int MAX_SIZE = 100;
+
+    private static final String ID = "id";
+
+    private final Map<String, Function<T, ?>> sortKeys;
+    private final String sortAttribute;
+    private final Sort.Direction direction;
+    private final Filter<E> filter;
+    private final KeysetCursor after;
+    private final int size;
+
+    private KeysetQuery(Map<String, Function<T, ?>> sortKeys, String sortAttribute, Sort.Direction direction,
+                        Filter<E> filter, KeysetCursor after, int size) {
+        this.sortKeys = sortKeys;
+        this.sortAttribute = sortAttribute;
+        this.direction = direction;
+        this.filter = filter;
+        this.after = after;
+        this.size = size;
+    }
+
+    /**
+     * @param sortKeys attributes with an index (tenant_id, attribute, id) and how to read them from the projection,
+     *                 must contain "id"
+     * @param filters  filters given in the request
+     * @param sort     "attribute" or "attribute,asc|desc", may be null
+     * @param cursor   KeysetCursor of the previous page, may be null
+     */
+    public static <E, T> KeysetQuery<E, T> of(Map<String, Function<T, ?>> sortKeys, List<Filter<E>> filters,
+                                              String sort, String cursor, int size) {
+        if (filters.size() > 1) {
+            throw new InvalidQueryException("Filters on " + filters.stream().map(Filter::attribute).toList()
+                    + " cannot be combined, there is no index for them, use one of them");
+        }
+        Filter<E> filter = filters.isEmpty() ? null : filters.get(0);
+
+        String[] sortParts = sort != null ? sort.split(",") : new String[]{filter != null ? filter.attribute() : ID};
+        String sortAttribute = sortParts[0].trim();
+        if (!sortKeys.containsKey(sortAttribute)) {
+            throw new InvalidQueryException("Sorting by '" + sortAttribute + "' is not supported, use one of "
+                    + sortKeys.keySet());
+        }
+        if (filter != null && !filter.attribute().equals(sortAttribute)) {
+            throw new InvalidQueryException("Filter on '" + filter.attribute() + "' can only be sorted by '"
+                    + filter.attribute() + "'");
+        }
+        Sort.Direction direction = sortParts.length > 1
+                ? Sort.Direction.fromString(sortParts[1].trim())
+                : Sort.Direction.ASC;
+
+        KeysetCursor after = null;
+        if (cursor != null) {
+            after = KeysetCursor.decode(cursor);
+            if (!after.sort().equals(sortKey(sortAttribute, direction))) {
+                throw new InvalidQueryException("The cursor belongs to a query with a different sort");
+            }
+        }
+        int pageSize = Math.max(1, Math.min(size, MAX_SIZE));
+        return new KeysetQuery<>(sortKeys, sortAttribute, direction, filter, after, pageSize);
+    }
+
+    public Specification<E> specification() {
+        Specification<E> specification = Specification.where(filter != null ? filter.specification() : null);
+        if (!sortAttribute.equals(ID)) {
+            specification = specification.and((root, query, cb) -> cb.isNotNull(root.get(sortAttribute)));
+        }
+        return after != null ? specification.and(afterCursor()) : specification;
+    }
+
+    public Sort sort() {
+        return sortAttribute.equals(ID)
+                ? Sort.by(direction, ID)
+                : Sort.by(direction, sortAttribute, ID);
+    }
+
+    // one row more than the page size, to know if there is a next page
+    public int limit() {
+        return size + 1;
+    }
+
+    public KeysetPageDto<T> toPage(List<T> rows) {
+        if (rows.size() <= size) {
+            return new KeysetPageDto<>(rows, null, false);
+        }
+        List<T> content = rows.subList(0, size);
+        T last = content.get(size - 1);
+        Object id = sortKeys.get(ID).apply(last);
+        Object value = sortKeys.get(sortAttribute).apply(last);
+        String cursor = new KeysetCursor(sortKey(sortAttribute, direction), String.valueOf(value),
+                ((Number) id).longValue()).encode();
+        return new KeysetPageDto<>(List.copyOf(content), cursor, true);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Specification<E> afterCursor() {
+        boolean descending = direction.isDescending();
+        long lastId = after.id();
+        return (root, query, cb) -> {
+            Path<Long> id = root.get(ID);
+            Predicate afterId = descending ? cb.lessThan(id, lastId) : cb.greaterThan(id, lastId);
+            // equality filter: all rows have the same value, the position is only the id
+            if (sortAttribute.equals(ID) || (filter != null && filter.exact())) {
+                return afterId;
+            }
+            Path<Comparable> key = root.get(sortAttribute);
+            Comparable value;
+            try {
+                value = (Comparable) DefaultConversionService.getSharedInstance().convert(after.value(), key.getJavaType());
+            } catch (ConversionException e) {
+                throw new InvalidQueryException("Invalid cursor", e);
+            }
+            return descending
+                    ? cb.and(cb.lessThanOrEqualTo(key, value), cb.or(cb.lessThan(key, value), afterId))
+                    : cb.and(cb.greaterThanOrEqualTo(key, value), cb.or(cb.greaterThan(key, value), afterId));
+        };
+    }
+
+    private static String sortKey(String attribute, Sort.Direction direction) {
+        return attribute + "," + direction.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param exact true for `attribute = value`, false for ranges
+     */
+    public record Filter<E>(String attribute, Specification<E> specification, boolean exact) {
+
+        public static <E> Filter<E> equal(String attribute, Object value) {
+            return new Filter<>(attribute, (root, query, cb) -> cb.equal(root.get(attribute), value), true);
+        }
+
+        public static <E> Filter<E> between(String attribute, Integer from, Integer to) {
+            if (from != null && to != null && from > to) {
+                throw new InvalidQueryException("Empty range of '" + attribute + "': " + from + " > " + to);
+            }
+            return new Filter<>(attribute, (root, query, cb) -> {
+                Path<Integer> path = root.get(attribute);
+                if (from == null) {
+                    return cb.lessThanOrEqualTo(path, to);
+                }
+                return to == null ? cb.greaterThanOrEqualTo(path, from) : cb.between(path, from, to);
+            }, false);
+        }
+
+        /*
+            `like 'abc%'` cannot use a b-tree index with a non-C collation, so the prefix is also expressed as the range
+            ['abc', 'abd') which is an index condition; `like` stays to filter the result exactly.
+         */
+        public static <E> Filter<E> startsWith(String attribute, String prefix) {
+            String escaped = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+            char last = prefix.charAt(prefix.length() - 1);
+            String upperBound = last < Character.MAX_VALUE
+                    ? prefix.substring(0, prefix.length() - 1) + (char) (last + 1)
+                    : null;
+            return new Filter<>(attribute, (root, query, cb) -> {
+                Path<String> path = root.get(attribute);
+                Predicate lowerBound = cb.greaterThanOrEqualTo(path, prefix);
+                Predicate like = cb.like(path, escaped + "%", '\\');
+                return upperBound != null
+                        ? cb.and(lowerBound, cb.lessThan(path, upperBound), like)
+                        : cb.and(lowerBound, like);
+            }, false);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.sbdatajpademo.query;
+
+import com.example.sbdatajpademo.tenant.TenantIdentifierResolver;
+import com.example.sbdatajpademo.tenant.TenantKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    Number of rows of the current tenant in a table without `count(*)`, which has to read all of them (or their index
+    entries) on every request.
+
+    1. PostgreSQL planner statistics: the same formula the planner uses - rows per page from the last ANALYZE
+       (pg_class.reltuples / relpages) times the current number of pages, so it follows inserts/deletes between
+       two autovacuum runs; times the share of the tenant in `tenant_id` (pg_stats.most_common_freqs).
+       Costs two catalog lookups.
+    2. When there are no statistics (table never analyzed, reltuples = -1), the tenant is too small to be one of
+       the most common values, or the database is not PostgreSQL (H2 in tests):
+       `count(*)` cached per table and tenant and refreshed in the background every `count-estimate.refresh-interval`.
+       A failed planner lookup (connection or statement timeout) falls back to the same cached count, the next
+       refresh asks the planner again.
+
+    Only for queries without filters (other than the tenant) - the estimate is for all rows of the tenant.
+ */
+@Component
+public class TableCountEstimator {
+
+    private static final Logger log = LoggerFactory.getLogger(TableCountEstimator.class);
+
+    private static final String PLANNER_ESTIMATE = """
+            select (select case when c.relpages > 0
+                                then c.reltuples / c.relpages * (pg_relation_size(c.oid) / current_setting('block_size')::int)
+                                else c.reltuples end
+                    from pg_class c
+                    where c.oid = to_regclass(?))
+                 * (select s.most_common_freqs[array_position(s.most_common_vals::text::text[], ?)]
+                    from pg_stats s
+                    where s.schemaname = current_schema() and s.tablename = ? and s.attname = 'tenant_id')""";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TenantIdentifierResolver tenantIdentifierResolver;
+
+    // (tenant, table) without planner statistics
+    private final Map<TenantKey<String>, Long> cachedCounts = new ConcurrentHashMap<>();
+
+    // null until the database was asked once, see plannerStatisticsAvailable()
+    private volatile Boolean postgres;
+
+    public TableCountEstimator(JdbcTemplate jdbcTemplate, TenantIdentifierResolver tenantIdentifierResolver) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tenantIdentifierResolver = tenantIdentifierResolver;
+    }
+
+    public long estimate(String table) {
+        TenantKey<String> key = new TenantKey<>(tenantIdentifierResolver.resolveCurrentTenantIdentifier(), table);
+        Long cached = cachedCounts.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Long estimate = plannerEstimate(key);
+        return estimate != null ? estimate : cachedCounts.computeIfAbsent(key, this::count);
+    }
+
+    // after a bulk change of the current tenant's rows, the cached count would be off until the next refresh
+    public void invalidate(String table) {
+        cachedCounts.remove(new TenantKey<>(tenantIdentifierResolver.resolveCurrentTenantIdentifier(), table));
+    }
+
+    @Scheduled(fixedDelayString = "${count-estimate.refresh-interval:60000}")
+    public void refresh() {
+        for (TenantKey<String> key : cachedCounts.keySet()) {
+            if (plannerEstimate(key) != null) {
+                cachedCounts.remove(key);
+            } else {
+                cachedCounts.put(key, count(key));
+            }
+        }
+    }
+
+    private Long plannerEstimate(TenantKey<String> key) {
+        if (!plannerStatisticsAvailable()) {
+            return null;
+        }
+        try {
+            Double estimate = jdbcTemplate.query(PLANNER_ESTIMATE,
+                    rs -> rs.next() ? rs.getDouble(1) : null, key.key(), key.tenantId(), key.key());
+            // 0 (null) when the tenant is not one of the most common values
+            return estimate != null && estimate >= 1 ? Math.round(estimate) : null;
+        } catch (DataAccessException e) {
+            log.warn("Planner estimate of {} failed ({}), count(*) is cached until the next refresh",
+                    key.key(), e.getMessage());
+            return null;
+        }
+    }
+
+    /*
+        pg_class and pg_stats exist only in PostgreSQL (H2 has neither, also in PostgreSQL mode).
+        Decided on the first estimate and not at startup, because the startup profile does not open a connection
+        at boot; if the database cannot be reached, it is asked again on the next estimate.
+     */
+    private boolean plannerStatisticsAvailable() {
+        Boolean available = postgres;
+        if (available == null) {
+            try {
+                available = "PostgreSQL".equals(jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                        connection.getMetaData().getDatabaseProductName()));
+            } catch (DataAccessException e) {
+                log.warn("Cannot read the database product ({}), count(*) is cached for now", e.getMessage());
+                return false;
+            }
+            log.info("Planner statistics {}", available ? "are used for row counts" : "are not available");
+            postgres = available;
+        }
+        return available;
+    }
+
+    // table names come from the code (entity tables), never from a request
+    private long count(TenantKey<String> key) {
+        Long count = jdbcTemplate.queryForObject("select count(*) from " + key.key() + " where tenant_id = ?",
+                Long.class, key.tenantId());
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.sbdatajpademo.repository;
+
+import com.example.sbdatajpademo.entity.AggregateType;
+import com.example.sbdatajpademo.entity.DeletedRecord;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface DeletedRecordRepository extends JpaRepository<DeletedRecord, Long> {
+
+    @Query("""
+            select d from DeletedRecord d
+            where d.aggregateType = :type and d.deletedAt < :until
+              and (d.deletedAt > :since or (d.deletedAt = :since and d.aggregateId > :afterId))
+            order by d.deletedAt, d.aggregateId""")
+    List<DeletedRecord> findDeletedSince(@Param("type") AggregateType type,
+                                         @Param("since") Instant since,
+                                         @Param("afterId") long afterId,
+                                         @Param("until") Instant until,
+                                         Pageable pageable);
+}
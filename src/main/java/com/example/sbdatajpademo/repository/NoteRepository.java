@@ -1,15 +1,31 @@
 package com.example.sbdatajpademo.repository;
 
+import com.example.sbdatajpademo.dto.NoteChangeDto;
 import com.example.sbdatajpademo.dto.NoteDto;
+import com.example.sbdatajpademo.dto.NoteSummaryDto;
+import com.example.sbdatajpademo.dto.NoteSummaryView;
 import com.example.sbdatajpademo.entity.Note;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface NoteRepository extends JpaRepository<Note, Long> {
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+public interface NoteRepository extends JpaRepository<Note, Long>, ProjectionQueryRepository {
 
     // we can use one of the 4 ways below to use Dto in more efficient way:
 
@@ -30,6 +46,117 @@ public interface NoteRepository extends JpaRepository<Note, Long> {
     <T> List<T> findAllBy(Class<T> type);
 
     <T> Page<T> findAllBy(Class<T> type, Pageable pageable);
+
+    // the same queries as a Slice: size + 1 rows, without the count query (see EstimatedPage)
+    Slice<Note> findSliceBy(Pageable pageable);
+
+    <T> Slice<T> findSliceBy(Class<T> type, Pageable pageable);
+
+    // keyset pagination over the (tenant_id, updated_at, id) index, see SyncService
+    @Query("""
+            select new com.example.sbdatajpademo.dto.NoteChangeDto(n.id, n.title, n.person.id, n.updatedAt)
+            from Note n
+            where n.updatedAt < :until
+              and (n.updatedAt > :since or (n.updatedAt = :since and n.id > :afterId))
+            order by n.updatedAt, n.id""")
+    List<NoteChangeDto> findChangedSince(@Param("since") Instant since, @Param("afterId") long afterId,
+                                         @Param("until") Instant until, Pageable pageable);
+
+    // rows written before updated_at was audited, the first sync returns them before everything else
+    @Query("""
+            select new com.example.sbdatajpademo.dto.NoteChangeDto(n.id, n.title, n.person.id, n.updatedAt)
+            from Note n
+            where n.updatedAt is null and n.id > :afterId
+            order by n.id""")
+    List<NoteChangeDto> findNeverUpdated(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("""
+            select new com.example.sbdatajpademo.dto.NoteSummaryDto(n.id, n.title, n.person.id)
+            from Note n
+            where n.person.id = :personId
+            order by n.id desc""")
+    List<NoteSummaryDto> findLatestByPersonId(@Param("personId") Long personId, Pageable limit);
+
+    /*
+        latest `limit` notes of every person in one query: the lateral subquery runs once per person and stops
+        after `limit` rows of the (person_id, id) index, a window function would number all notes of the persons.
+        Native SQL is not restricted by @TenantId: personIds come from a query of the current tenant and a note
+        always has the tenant of its person.
+     */
+    @Query(nativeQuery = true, value = """
+            select latest.id as id, latest.title as title, latest.person_id as personId
+            from persons p
+            cross join lateral (select n.id, n.title, n.person_id
+                                from note n
+                                where n.person_id = p.id
+                                order by n.id desc
+                                limit :limit) latest
+            where p.id in (:personIds)
+            order by latest.person_id, latest.id desc""")
+    List<NoteSummaryView> findLatestByPersonIds(@Param("personIds") Collection<Long> personIds,
+                                                @Param("limit") int limit);
+
+    // a cursor over all notes of a person: fetched 500 rows at a time, Dto are not kept in the session
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("""
+            select new com.example.sbdatajpademo.dto.NoteSummaryDto(n.id, n.title, n.person.id)
+            from Note n
+            where n.person.id = :personId
+            order by n.id""")
+    Stream<NoteSummaryDto> streamByPersonId(@Param("personId") Long personId);
+
+    /*
+        Bulk operations, see NoteBulkService: a batch of notes is selected as Dto after the previous batch and locked
+        (`for update`), then changed with one statement by ids in the same transaction. A note changed or deleted
+        concurrently is either locked by the select or skipped by it (PostgreSQL re-checks the condition after
+        waiting for the lock), so the statement by ids changes exactly the selected notes.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            select new com.example.sbdatajpademo.dto.NoteSummaryDto(n.id, n.title, n.person.id)
+            from Note n
+            where n.person.id = :personId and n.id > :afterId
+            order by n.id""")
+    List<NoteSummaryDto> findBatchByPersonId(@Param("personId") Long personId, @Param("afterId") long afterId,
+                                             Pageable limit);
+
+    // (updatedAt, id) keyset over the (tenant_id, updated_at, id) index, as findChangedSince
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            select new com.example.sbdatajpademo.dto.NoteChangeDto(n.id, n.title, n.person.id, n.updatedAt)
+            from Note n
+            where n.updatedAt < :before
+              and (n.updatedAt > :since or (n.updatedAt = :since and n.id > :afterId))
+            order by n.updatedAt, n.id""")
+    List<NoteChangeDto> findBatchUpdatedBefore(@Param("before") Instant before, @Param("since") Instant since,
+                                               @Param("afterId") long afterId, Pageable limit);
+
+    // ordered by id and not by title: the title of a batch changes, only the id is a stable position
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            select new com.example.sbdatajpademo.dto.NoteSummaryDto(n.id, n.title, n.person.id)
+            from Note n
+            where n.title like :pattern escape '!' and n.id > :afterId
+            order by n.id""")
+    List<NoteSummaryDto> findBatchByTitleLike(@Param("pattern") String pattern, @Param("afterId") long afterId,
+                                              Pageable limit);
+
+    // the outbox events and tombstones of the batch are flushed first, the request's persistence context is cleared
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Note n where n.id in :ids")
+    int deleteAllByIds(@Param("ids") Collection<Long> ids);
+
+    // bulk statements skip @LastModifiedDate, updatedAt is set here so the sync API sees the change
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Note n
+            set n.title = concat(:replacement, substring(n.title, :keepFrom)), n.updatedAt = :now
+            where n.id in :ids""")
+    int replaceTitlePrefix(@Param("ids") Collection<Long> ids, @Param("replacement") String replacement,
+                           @Param("keepFrom") int keepFrom, @Param("now") Instant now);
 }
 
 /*
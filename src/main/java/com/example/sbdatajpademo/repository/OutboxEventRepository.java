@@ -0,0 +1,19 @@
+package com.example.sbdatajpademo.repository;
+
+import com.example.sbdatajpademo.entity.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // events written by committed transactions which the relay has not published yet
+    List<OutboxEvent> findByPositionIsNullOrderByIdAsc(Pageable pageable);
+
+    List<OutboxEvent> findByPositionGreaterThanOrderByPositionAsc(long position, Pageable pageable);
+
+    @Query("select coalesce(max(e.position), 0) from OutboxEvent e")
+    long findMaxPosition();
+}
@@ -1,14 +1,19 @@
 package com.example.sbdatajpademo.repository;
 
+import com.example.sbdatajpademo.dto.PersonChangeDto;
 import com.example.sbdatajpademo.dto.PersonDto;
+import com.example.sbdatajpademo.dto.PersonSummaryDto;
 import com.example.sbdatajpademo.entity.Person;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
 
-public interface PersonRepository extends JpaRepository<Person, Long> {
+public interface PersonRepository extends JpaRepository<Person, Long>, ProjectionQueryRepository {
     // all these three methods are equivalent and do the same job
     // 1)
 //    List<Person> findByName(String name);
@@ -72,8 +77,31 @@ public interface PersonRepository extends JpaRepository<Person, Long> {
 
 
 //    @Query("select new com.example.sbdatajpademo.dto.PersonDto(p.firstName, p.lastName, (select count(n) from Note n where n.person = p)) from Person p") // need to check if all data is correct
-@Query("select new com.example.sbdatajpademo.dto.PersonDto(p.firstName, p.lastName, count(n)) from Person p left join p.notes n group by p.id")
+@Query("select new com.example.sbdatajpademo.dto.PersonDto(p.firstName, p.lastName, count(n)) from Person p left join p.notes n group by p.id, p.firstName, p.lastName")
     List<PersonDto> findAllWithNotesCount();
+
+    // keyset pagination over the (tenant_id, updated_at, id) index, see SyncService
+    @Query("""
+            select new com.example.sbdatajpademo.dto.PersonChangeDto(p.id, p.firstName, p.lastName, p.age, p.updatedAt)
+            from Person p
+            where p.updatedAt < :until
+              and (p.updatedAt > :since or (p.updatedAt = :since and p.id > :afterId))
+            order by p.updatedAt, p.id""")
+    List<PersonChangeDto> findChangedSince(@Param("since") Instant since, @Param("afterId") long afterId,
+                                           @Param("until") Instant until, Pageable pageable);
+
+    // rows written before updated_at was audited, see NoteRepository.findNeverUpdated
+    @Query("""
+            select new com.example.sbdatajpademo.dto.PersonChangeDto(p.id, p.firstName, p.lastName, p.age, p.updatedAt)
+            from Person p
+            where p.updatedAt is null and p.id > :afterId
+            order by p.id""")
+    List<PersonChangeDto> findNeverUpdated(@Param("afterId") long afterId, Pageable pageable);
+
+    // without the notes collection, notes are read separately with a limit, see PersonNotesService
+    Optional<PersonSummaryDto> findSummaryById(Long id);
+
+    List<PersonSummaryDto> findSummariesByIdBetweenOrderById(long id1, long id2, Pageable limit);
 }
 
 /*
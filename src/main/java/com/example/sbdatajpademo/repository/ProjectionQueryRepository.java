@@ -0,0 +1,20 @@
+package com.example.sbdatajpademo.repository;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/*
+    Custom fragment (implemented by ProjectionQueryRepositoryImpl) for queries which are composed at runtime:
+    JpaSpecificationExecutor can filter with a Specification, but always selects the whole entity, here only
+    the columns of the projection are selected - `select new T(attributes...) from E where ... order by ...`.
+ */
+public interface ProjectionQueryRepository {
+
+    /**
+     * @param attributes arguments of the projection constructor in their order, nested paths like "person.id"
+     */
+    <E, T> List<T> findProjected(Class<E> entityType, Specification<E> specification, Class<T> projection,
+                                 List<String> attributes, Sort sort, int limit);
+}
@@ -0,0 +1,201 @@
+package com.example.sbdatajpademo.sevice;
+
+import com.example.sbdatajpademo.dto.BulkResultDto;
+import com.example.sbdatajpademo.dto.NoteChangeDto;
+import com.example.sbdatajpademo.dto.NoteRetitleRequestDto;
+import com.example.sbdatajpademo.dto.NoteSummaryDto;
+import com.example.sbdatajpademo.entity.AggregateType;
+import com.example.sbdatajpademo.entity.EventType;
+import com.example.sbdatajpademo.exception.InvalidQueryException;
+import com.example.sbdatajpademo.query.TableCountEstimator;
+import com.example.sbdatajpademo.repository.NoteRepository;
+import com.example.sbdatajpademo.repository.PersonRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/*
+    Bulk delete/retitle of notes without loading them as entities.
+
+    `Person.removeNote` + cascade loads every note into the persistence context and deletes it with its own statement.
+    Here the notes are processed in batches of `bulk.batch-size`, every batch in its own transaction:
+        1. the next batch is selected as Dto by keyset (after the last id of the previous batch) and locked,
+           no entities
+        2. outbox events and tombstones are written for it, consumers and sync clients still learn about every note
+        3. the whole batch is deleted/updated by one `where id in (...)` statement
+    The notes are locked from the select to the commit, so the events describe exactly the rows the statement
+    changed. Row locks are held for one batch only, a long cleanup does not block the writers of the same notes.
+
+    Bulk JPQL bypasses the persistence context: @Modifying flushes and clears it (the open-session-in-view
+    EntityManager of the request), cached note counts are invalidated after the last batch.
+ */
+@Service
+public class NoteBulkService {
+
+    private static final String NOTE_TABLE = "note";
+
+    // outbox events and tombstones of a batch are sent to the database in JDBC batches of this size
+    private static final int JDBC_BATCH_SIZE = 50;
+
+    private final NoteRepository noteRepository;
+
+    private final PersonRepository personRepository;
+
+    private final OutboxService outboxService;
+
+    private final SyncService syncService;
+
+    private final TableCountEstimator tableCountEstimator;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transaction;
+
+    @Value("${bulk.batch-size:1000}")
+    private int batchSize;
+
+    public NoteBulkService(NoteRepository noteRepository, PersonRepository personRepository,
+                           OutboxService outboxService, SyncService syncService,
+                           TableCountEstimator tableCountEstimator, EntityManager entityManager,
+                           PlatformTransactionManager transactionManager) {
+        this.noteRepository = noteRepository;
+        this.personRepository = personRepository;
+        this.outboxService = outboxService;
+        this.syncService = syncService;
+        this.tableCountEstimator = tableCountEstimator;
+        this.entityManager = entityManager;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    public BulkResultDto deleteNotesOfPerson(Long personId) {
+        if (!personRepository.existsById(personId)) {
+            throw new EntityNotFoundException("Person not found");
+        }
+        return inBatches(afterId -> noteRepository.findBatchByPersonId(personId, afterId, batch()), this::delete);
+    }
+
+    /*
+        notes not modified since `olderThan`, keyset (updatedAt, id) instead of id only, see findBatchUpdatedBefore.
+        Notes without updatedAt (written by plain SQL before it was audited) are kept: their age is unknown, they are
+        not known to be older than the cutoff.
+     */
+    public BulkResultDto deleteNotesOlderThan(Instant olderThan) {
+        if (olderThan == null) {
+            throw new InvalidQueryException("olderThan must be set");
+        }
+        long affected = 0;
+        int batches = 0;
+        Instant since = Instant.EPOCH;
+        long afterId = 0;
+        Batch<NoteChangeDto> batch;
+        do {
+            Instant from = since;
+            long fromId = afterId;
+            batch = inTransaction(() -> {
+                List<NoteChangeDto> notes = noteRepository.findBatchUpdatedBefore(olderThan, from, fromId, batch());
+                return new Batch<>(notes, notes.isEmpty() ? 0 : delete(notes.stream()
+                        .map(n -> new NoteSummaryDto(n.id(), n.title(), n.personId()))
+                        .toList()));
+            });
+            if (batch.notes().isEmpty()) {
+                break;
+            }
+            affected += batch.affected();
+            batches++;
+            since = batch.last().changedAt();
+            afterId = batch.last().id();
+        } while (batch.notes().size() == batchSize);
+        return result(affected, batches);
+    }
+
+    public BulkResultDto retitleNotes(NoteRetitleRequestDto request) {
+        String prefix = request.prefix();
+        String replacement = request.replacement();
+        if (prefix == null || prefix.isEmpty() || replacement == null) {
+            throw new InvalidQueryException("prefix and replacement must be set");
+        }
+        String pattern = prefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+        return inBatches(afterId -> noteRepository.findBatchByTitleLike(pattern, afterId, batch()),
+                notes -> {
+                    notes.forEach(n -> outboxService.noteChanged(new NoteSummaryDto(n.id(),
+                            replacement + n.title().substring(prefix.length()), n.personId()), EventType.UPDATED));
+                    return noteRepository.replaceTitlePrefix(ids(notes), replacement, prefix.length() + 1,
+                            Instant.now());
+                });
+    }
+
+    /*
+        keyset by id: every batch starts after the last id of the previous one, the last batch is shorter;
+        the batch is selected (and locked) and changed in one transaction
+     */
+    private BulkResultDto inBatches(LongFunction<List<NoteSummaryDto>> nextBatch,
+                                    ToIntFunction<List<NoteSummaryDto>> change) {
+        long affected = 0;
+        int batches = 0;
+        long afterId = 0;
+        Batch<NoteSummaryDto> batch;
+        do {
+            long from = afterId;
+            batch = inTransaction(() -> {
+                List<NoteSummaryDto> notes = nextBatch.apply(from);
+                return new Batch<>(notes, notes.isEmpty() ? 0 : change.applyAsInt(notes));
+            });
+            if (batch.notes().isEmpty()) {
+                break;
+            }
+            affected += batch.affected();
+            batches++;
+            afterId = batch.last().id();
+        } while (batch.notes().size() == batchSize);
+        return result(affected, batches);
+    }
+
+    // events first, then tombstones: inserts into one table in a row go to the database as one JDBC batch
+    private int delete(List<NoteSummaryDto> notes) {
+        notes.forEach(n -> outboxService.noteChanged(n, EventType.DELETED));
+        notes.forEach(n -> syncService.recordDeletion(AggregateType.NOTE, n.id()));
+        return noteRepository.deleteAllByIds(ids(notes));
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+        return transaction.execute(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(JDBC_BATCH_SIZE);
+            return work.get();
+        });
+    }
+
+    private BulkResultDto result(long affected, int batches) {
+        if (affected > 0) {
+            tableCountEstimator.invalidate(NOTE_TABLE);
+        }
+        return new BulkResultDto(affected, batches);
+    }
+
+    private Pageable batch() {
+        return PageRequest.of(0, batchSize);
+    }
+
+    private static List<Long> ids(List<NoteSummaryDto> notes) {
+        return notes.stream().map(NoteSummaryDto::id).toList();
+    }
+
+    // the notes of one transaction and the number of rows the statement changed
+    private record Batch<T>(List<T> notes, int affected) {
+
+        T last() {
+            return notes.get(notes.size() - 1);
+        }
+    }
+}
@@ -1,8 +1,16 @@
 package com.example.sbdatajpademo.sevice;
 
 import com.example.sbdatajpademo.dto.NoteDto;
+import com.example.sbdatajpademo.dto.NoteRequestDto;
 import com.example.sbdatajpademo.dto.NoteTitleDto;
+import com.example.sbdatajpademo.entity.AggregateType;
+import com.example.sbdatajpademo.entity.EventType;
+import com.example.sbdatajpademo.entity.Note;
+import com.example.sbdatajpademo.query.CountMode;
+import com.example.sbdatajpademo.query.EstimatedPage;
+import com.example.sbdatajpademo.query.TableCountEstimator;
 import com.example.sbdatajpademo.repository.NoteRepository;
+import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -15,8 +23,28 @@ import java.util.List;
 @RequiredArgsConstructor
 public class NoteService {
 
+    private static final String NOTE_TABLE = "note";
+
     private final NoteRepository noteRepository;
 
+    private final OutboxService outboxService;
+
+    private final SyncService syncService;
+
+    private final TableCountEstimator tableCountEstimator;
+
+    /*
+        count=estimated: на великій таблиці `count(*)` на кожну сторінку коштує більше, ніж сама сторінка,
+        тому вміст читається як Slice, а загальна кількість береться зі статистики PostgreSQL (totalApproximate = true)
+     */
+    @Transactional(readOnly = true)
+    public Page<Note> findAllNotes(Pageable pageable, CountMode countMode) {
+        if (countMode == CountMode.EXACT) {
+            return noteRepository.findAll(pageable);
+        }
+        return EstimatedPage.of(noteRepository.findSliceBy(pageable), () -> tableCountEstimator.estimate(NOTE_TABLE));
+    }
+
     /*
       теоретично можна передавати сюди як параметр Pageable потім перемаплювати,
       але тут є інше але, яке повязане з вигрузкою даних з БД та опрацюванні на стороні java:
@@ -60,8 +88,36 @@ public class NoteService {
         return noteRepository.findAllBy(NoteTitleDto.class);
     }
 
+    // every note has a person (optional = false), so the inner join does not change the number of rows
     @Transactional(readOnly = true)
-    public Page<NoteDto> getAllNotesUsingQueryWithGenericDtoPageable(Pageable pageable) {
-        return noteRepository.findAllBy(NoteDto.class, pageable);
+    public Page<NoteDto> getAllNotesUsingQueryWithGenericDtoPageable(Pageable pageable, CountMode countMode) {
+        if (countMode == CountMode.EXACT) {
+            return noteRepository.findAllBy(NoteDto.class, pageable);
+        }
+        return EstimatedPage.of(noteRepository.findSliceBy(NoteDto.class, pageable),
+                () -> tableCountEstimator.estimate(NOTE_TABLE));
+    }
+
+    @Transactional
+    public Note updateNote(Long noteId, NoteRequestDto request) {
+        Note note = getNote(noteId);
+        note.setTitle(request.title());
+
+        outboxService.noteChanged(note, EventType.UPDATED);
+        return note;
+    }
+
+    @Transactional
+    public void deleteNote(Long noteId) {
+        Note note = getNote(noteId);
+        outboxService.noteChanged(note, EventType.DELETED);
+        syncService.recordDeletion(AggregateType.NOTE, note.getId());
+
+        noteRepository.delete(note);
+    }
+
+    private Note getNote(Long noteId) {
+        return noteRepository.findById(noteId)
+                .orElseThrow(() -> new EntityNotFoundException("Note not found"));
     }
 }
@@ -0,0 +1,147 @@
+package com.example.sbdatajpademo.sevice;
+
+import com.example.sbdatajpademo.dto.OutboxEventDto;
+import com.example.sbdatajpademo.entity.AggregateType;
+import com.example.sbdatajpademo.tenant.TenantIdentifierResolver;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/*
+    Streams committed outbox events to Server-Sent Events subscribers.
+
+    Every tick the relay first publishes pending events (assigns them a position), then reads the outbox once in
+    batches starting from the smallest offset of all subscribers and sends each subscriber only the events after its
+    own offset. A new subscriber with an old offset therefore catches up through the same batched reads as everyone
+    else, instead of issuing its own `findAll`-like scan.
+
+    The outbox is shared by all tenants, a subscriber gets only the events of the tenant it subscribed from.
+
+    The relay runs on its own thread and not on the shared @Scheduled one: SseEmitter.send blocks while a slow client
+    does not read, which must delay only the next relay tick and not every other scheduled job of the application.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    private static final long EMITTER_TIMEOUT = Duration.ofMinutes(30).toMillis();
+
+    private final OutboxService outboxService;
+
+    private final TenantIdentifierResolver tenantIdentifierResolver;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    private final ThreadPoolTaskScheduler scheduler = newScheduler();
+
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.relay.poll-interval:500}")
+    private long pollInterval;
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        scheduler.scheduleWithFixedDelay(this::relay, Duration.ofMillis(pollInterval));
+    }
+
+    @PreDestroy
+    void stop() {
+        scheduler.shutdown();
+    }
+
+    /*
+        offset - position of the last event the client has already seen (SSE `Last-Event-ID`),
+        null means "only new events from now on"
+     */
+    public SseEmitter subscribe(AggregateType aggregateType, Long offset) {
+        SseEmitter emitter = newEmitter();
+        Subscription subscription = new Subscription(tenantIdentifierResolver.resolveCurrentTenantIdentifier(),
+                aggregateType, emitter,
+                offset != null ? offset : outboxService.findLastPosition());
+
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onTimeout(() -> subscriptions.remove(subscription));
+        emitter.onError(e -> subscriptions.remove(subscription));
+        subscriptions.add(subscription);
+        return emitter;
+    }
+
+    public void relay() {
+        while (outboxService.publishPending(batchSize) == batchSize) {
+            // keep publishing until the backlog of pending events is drained
+        }
+        if (subscriptions.isEmpty()) {
+            return;
+        }
+
+        long position = subscriptions.stream().mapToLong(s -> s.offset).min().orElseThrow();
+        List<OutboxEventDto> batch;
+        do {
+            batch = outboxService.findPublishedAfter(position, batchSize);
+            for (Subscription subscription : subscriptions) {
+                subscription.send(batch);
+            }
+            if (!batch.isEmpty()) {
+                position = batch.get(batch.size() - 1).position();
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(EMITTER_TIMEOUT);
+    }
+
+    private static ThreadPoolTaskScheduler newScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("outbox-relay-");
+        scheduler.initialize();
+        return scheduler;
+    }
+
+    private final class Subscription {
+
+        private final String tenantId;
+        private final AggregateType aggregateType;
+        private final SseEmitter emitter;
+        private long offset;
+
+        private Subscription(String tenantId, AggregateType aggregateType, SseEmitter emitter, long offset) {
+            this.tenantId = tenantId;
+            this.aggregateType = aggregateType;
+            this.emitter = emitter;
+            this.offset = offset;
+        }
+
+        private void send(List<OutboxEventDto> events) {
+            try {
+                for (OutboxEventDto event : events) {
+                    if (event.position() <= offset) {
+                        continue;
+                    }
+                    if (event.aggregateType() == aggregateType && event.tenantId().equals(tenantId)) {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(event.position()))
+                                .name(event.eventType().name())
+                                .data(event));
+                    }
+                    offset = event.position();
+                }
+            } catch (IOException | IllegalStateException e) {
+                // client went away, the emitter callbacks are not guaranteed to run in this case
+                subscriptions.remove(this);
+                emitter.completeWithError(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.sbdatajpademo.sevice;
+
+import com.example.sbdatajpademo.dto.NoteEventDto;
+import com.example.sbdatajpademo.dto.NoteSummaryDto;
+import com.example.sbdatajpademo.dto.OutboxEventDto;
+import com.example.sbdatajpademo.dto.PersonEventDto;
+import com.example.sbdatajpademo.entity.AggregateType;
+import com.example.sbdatajpademo.entity.EventType;
+import com.example.sbdatajpademo.entity.Note;
+import com.example.sbdatajpademo.entity.OutboxEvent;
+import com.example.sbdatajpademo.entity.Person;
+import com.example.sbdatajpademo.repository.OutboxEventRepository;
+import com.example.sbdatajpademo.tenant.TenantIdentifierResolver;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final TenantIdentifierResolver tenantIdentifierResolver;
+
+    /*
+        MANDATORY - подія пишеться тільки в рамках тієї ж транзакції, що й зміна Person/Note,
+        тому або комітяться обидва записи, або жоден
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void personChanged(Person person, EventType eventType) {
+        append(AggregateType.PERSON, person.getId(), eventType,
+                new PersonEventDto(person.getId(), person.getFirstName(), person.getLastName(), person.getAge()));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void noteChanged(Note note, EventType eventType) {
+        append(AggregateType.NOTE, note.getId(), eventType,
+                new NoteEventDto(note.getId(), note.getTitle(), note.getPerson().getId()));
+    }
+
+    // bulk operations change notes without loading them, see NoteBulkService
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void noteChanged(NoteSummaryDto note, EventType eventType) {
+        append(AggregateType.NOTE, note.id(), eventType, new NoteEventDto(note.id(), note.title(), note.personId()));
+    }
+
+    /*
+        Sequence ids are allocated when the event is written, not when it is committed, so a transaction that started
+        earlier can commit its event after a later one was already streamed. Instead of streaming by id, the relay
+        assigns a gap-free `position` to committed events in a single thread and consumers read strictly by position.
+        This assumes one relay per database; several instances would need `select ... for update skip locked` here.
+     */
+    @Transactional
+    public int publishPending(int batchSize) {
+        List<OutboxEvent> pending = outboxEventRepository.findByPositionIsNullOrderByIdAsc(PageRequest.of(0, batchSize));
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        long position = outboxEventRepository.findMaxPosition();
+        for (OutboxEvent event : pending) {
+            event.setPosition(++position);
+        }
+        return pending.size();
+    }
+
+    @Transactional(readOnly = true)
+    public List<OutboxEventDto> findPublishedAfter(long position, int batchSize) {
+        return outboxEventRepository.findByPositionGreaterThanOrderByPositionAsc(position, PageRequest.of(0, batchSize))
+                .stream()
+                .map(e -> new OutboxEventDto(e.getPosition(), e.getTenantId(), e.getAggregateType(), e.getAggregateId(),
+                        e.getEventType(), e.getPayload(), e.getCreatedAt()))
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public long findLastPosition() {
+        return outboxEventRepository.findMaxPosition();
+    }
+
+    private void append(AggregateType aggregateType, Long aggregateId, EventType eventType, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        // the tenant of the session which writes the changed Person/Note
+        event.setTenantId(tenantIdentifierResolver.resolveCurrentTenantIdentifier());
+        event.setAggregateType(aggregateType);
+        event.setAggregateId(aggregateId);
+        event.setEventType(eventType);
+        event.setPayload(toJson(payload));
+        event.setCreatedAt(Instant.now());
+
+        outboxEventRepository.save(event);
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize outbox payload " + payload, e);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.sbdatajpademo.sevice;
+
+import com.example.sbdatajpademo.dto.NameSuggestionDto;
+import com.example.sbdatajpademo.exception.InvalidQueryException;
+import com.example.sbdatajpademo.tenant.TenancyProperties;
+import com.example.sbdatajpademo.tenant.TenantIdentifierResolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/*
+    In-memory prefix index of first and last names for /persons/autocomplete, no database query per keystroke.
+
+    Sorted map lowercase name -> number of persons with it as the first/last name; all names with a prefix are
+    the range [prefix, prefix + Character.MAX_VALUE) of the map, the top `limit` of them by the number of persons
+    is returned.
+    The map holds distinct names only (thousands), not persons. Every tenant has its own map, a tenant sees only
+    the names of its persons and its names do not change the ranking of the others.
+    The map of a tenant is bounded by `tenancy.tenants.<id>.max-indexed-names`, so a tenant with many distinct names
+    cannot take the memory of the others: a rebuild keeps its most common names, and new names of a full map are
+    left out until the next rebuild (counts of indexed names are still updated).
+
+    - built after startup from two `group by` queries (the database aggregates, only distinct names are streamed)
+    - kept up to date by PersonNameIndexUpdater after every committed insert/update/delete of a Person
+    - rebuilt every `autocomplete.rebuild-interval`: changes made by plain SQL (DataGenerator) and the ones committed
+      while a rebuild is running are picked up by the next rebuild; the counts only rank the suggestions
+
+    Prefixes of one or two characters match a large part of all names, so their top MAX_LIMIT names are precomputed
+    (on rebuild, and updated on every change of a name) and such a keystroke costs no scan at all. Longer prefixes
+    scan their range, but at most MAX_SCAN names of it - beyond that the suggestions are the best of the first
+    MAX_SCAN names in alphabetical order, not of all of them.
+
+    Entries are immutable and replaced with compute(); changes of one tenant are serialized, so the precomputed lists
+    always follow the map. Readers never lock.
+ */
+@Component
+public class PersonNameIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(PersonNameIndex.class);
+
+    public static final int MAX_LIMIT = 50;
+
+    // prefixes up to this length have precomputed suggestions
+    private static final int SHORT_PREFIX = 2;
+
+    // names of a longer prefix read per request
+    private static final int MAX_SCAN = 10_000;
+
+    // more persons first, then alphabetically
+    private static final Comparator<NameSuggestionDto> RANKING =
+            Comparator.comparingInt(PersonNameIndex::persons).reversed().thenComparing(NameSuggestionDto::name);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TenantIdentifierResolver tenantIdentifierResolver;
+
+    private final TenancyProperties tenancyProperties;
+
+    // tenant -> names
+    private volatile Map<String, TenantNames> names = new ConcurrentHashMap<>();
+
+    public PersonNameIndex(JdbcTemplate jdbcTemplate, TenantIdentifierResolver tenantIdentifierResolver,
+                           TenancyProperties tenancyProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tenantIdentifierResolver = tenantIdentifierResolver;
+        this.tenancyProperties = tenancyProperties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${autocomplete.rebuild-interval:3600000}",
+            fixedDelayString = "${autocomplete.rebuild-interval:3600000}")
+    public void rebuild() {
+        long start = System.nanoTime();
+        Map<String, TenantNames> index = new ConcurrentHashMap<>();
+        jdbcTemplate.query("""
+                        select tenant_id, first_name, count(*) from persons
+                        where first_name is not null group by tenant_id, first_name""",
+                (RowCallbackHandler) rs -> tenantNames(index, rs.getString(1)).add(rs.getString(2), rs.getInt(3), 0));
+        jdbcTemplate.query("""
+                        select tenant_id, last_name, count(*) from persons
+                        where last_name is not null group by tenant_id, last_name""",
+                (RowCallbackHandler) rs -> tenantNames(index, rs.getString(1)).add(rs.getString(2), 0, rs.getInt(3)));
+        index.forEach((tenantId, tenantNames) -> {
+            int dropped = tenantNames.keepMostCommon();
+            if (dropped > 0) {
+                log.warn("Person name index of tenant {} is full, {} least common names are left out",
+                        tenantId, dropped);
+            }
+            tenantNames.rankShortPrefixes();
+        });
+        names = index;
+        log.info("Person name index of {} tenants built in {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public List<NameSuggestionDto> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new InvalidQueryException("prefix must not be empty");
+        }
+        String from = key(prefix.strip());
+        int size = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        TenantNames tenantNames = names.get(tenantIdentifierResolver.resolveCurrentTenantIdentifier());
+        if (tenantNames == null) {
+            return List.of();
+        }
+        if (from.length() <= SHORT_PREFIX) {
+            List<NameSuggestionDto> top = tenantNames.topByPrefix.getOrDefault(from, List.of());
+            return top.subList(0, Math.min(size, top.size()));
+        }
+        return top(tenantNames.range(from).values(), size, MAX_SCAN);
+    }
+
+    public void personAdded(String tenantId, String firstName, String lastName) {
+        change(tenantId, firstName, 1, 0);
+        change(tenantId, lastName, 0, 1);
+    }
+
+    public void personRemoved(String tenantId, String firstName, String lastName) {
+        change(tenantId, firstName, -1, 0);
+        change(tenantId, lastName, 0, -1);
+    }
+
+    private void change(String tenantId, String name, int firstNameDelta, int lastNameDelta) {
+        if (name != null) {
+            tenantNames(names, tenantId).change(name, firstNameDelta, lastNameDelta);
+        }
+    }
+
+    private TenantNames tenantNames(Map<String, TenantNames> index, String tenantId) {
+        return index.computeIfAbsent(tenantId, t -> new TenantNames(tenancyProperties.maxIndexedNames(t)));
+    }
+
+    // the best `size` of at most `maxScan` names, by a min-heap of the best ones seen so far
+    private static List<NameSuggestionDto> top(Collection<NameSuggestionDto> candidates, int size, int maxScan) {
+        return top(candidates, size, maxScan, RANKING);
+    }
+
+    private static List<NameSuggestionDto> top(Collection<NameSuggestionDto> candidates, int size, int maxScan,
+                                               Comparator<NameSuggestionDto> ranking) {
+        PriorityQueue<NameSuggestionDto> top = new PriorityQueue<>(size + 1, ranking.reversed());
+        int scanned = 0;
+        for (NameSuggestionDto name : candidates) {
+            top.offer(name);
+            if (top.size() > size) {
+                top.poll();
+            }
+            if (++scanned == maxScan) {
+                break;
+            }
+        }
+        List<NameSuggestionDto> result = new ArrayList<>(top);
+        result.sort(ranking);
+        return result;
+    }
+
+    private static int persons(NameSuggestionDto name) {
+        return name.firstNameCount() + name.lastNameCount();
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> shortPrefixes(String key) {
+        List<String> prefixes = new ArrayList<>(SHORT_PREFIX);
+        for (int length = 1; length <= Math.min(SHORT_PREFIX, key.length()); length++) {
+            prefixes.add(key.substring(0, length));
+        }
+        return prefixes;
+    }
+
+    private static final class TenantNames {
+
+        private final int maxNames;
+
+        // lowercase name -> suggestion
+        private final ConcurrentSkipListMap<String, NameSuggestionDto> names = new ConcurrentSkipListMap<>();
+
+        // prefix of up to SHORT_PREFIX characters -> its best MAX_LIMIT names by RANKING, immutable lists
+        private final Map<String, List<NameSuggestionDto>> topByPrefix = new ConcurrentHashMap<>();
+
+        private TenantNames(int maxNames) {
+            this.maxNames = maxNames;
+        }
+
+        private Map<String, NameSuggestionDto> range(String prefix) {
+            return names.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        }
+
+        // while building the index, the short prefixes are ranked once at the end
+        private NameSuggestionDto add(String name, int firstNameDelta, int lastNameDelta) {
+            return names.compute(key(name), (key, current) -> {
+                NameSuggestionDto updated = current == null
+                        ? new NameSuggestionDto(name, Math.max(0, firstNameDelta), Math.max(0, lastNameDelta))
+                        : new NameSuggestionDto(current.name(), Math.max(0, current.firstNameCount() + firstNameDelta),
+                        Math.max(0, current.lastNameCount() + lastNameDelta));
+                return persons(updated) > 0 ? updated : null;
+            });
+        }
+
+        private synchronized void change(String name, int firstNameDelta, int lastNameDelta) {
+            String key = key(name);
+            NameSuggestionDto before = names.get(key);
+            if (before == null && names.size() >= maxNames) {
+                return;
+            }
+            NameSuggestionDto after = add(name, firstNameDelta, lastNameDelta);
+            for (String prefix : shortPrefixes(key)) {
+                topByPrefix.compute(prefix, (p, top) -> rerank(p, top, key, before, after));
+            }
+        }
+
+        private List<NameSuggestionDto> rerank(String prefix, List<NameSuggestionDto> top, String key,
+                                               NameSuggestionDto before, NameSuggestionDto after) {
+            List<NameSuggestionDto> updated = top != null ? new ArrayList<>(top) : new ArrayList<>();
+            boolean removed = updated.removeIf(n -> key(n.name()).equals(key));
+            if (removed && updated.size() == MAX_LIMIT - 1 && (after == null || RANKING.compare(after, before) > 0)) {
+                // a full list lost rank of one of its names: a name outside of it may be better now
+                updated = top(range(prefix).values(), MAX_LIMIT, Integer.MAX_VALUE);
+            } else if (after != null) {
+                int position = Collections.binarySearch(updated, after, RANKING);
+                updated.add(position < 0 ? -position - 1 : position, after);
+                if (updated.size() > MAX_LIMIT) {
+                    updated.remove(MAX_LIMIT);
+                }
+            }
+            return updated.isEmpty() ? null : List.copyOf(updated);
+        }
+
+        // after a rebuild: drops the least common names above maxNames, returns how many
+        private int keepMostCommon() {
+            int dropped = names.size() - maxNames;
+            if (dropped <= 0) {
+                return 0;
+            }
+            top(names.values(), dropped, Integer.MAX_VALUE, RANKING.reversed())
+                    .forEach(name -> names.remove(key(name.name())));
+            return dropped;
+        }
+
+        // one pass over all names grouped by their short prefixes, then the best of every group
+        private void rankShortPrefixes() {
+            Map<String, List<NameSuggestionDto>> byPrefix = new HashMap<>();
+            for (Map.Entry<String, NameSuggestionDto> name : names.entrySet()) {
+                for (String prefix : shortPrefixes(name.getKey())) {
+                    byPrefix.computeIfAbsent(prefix, p -> new ArrayList<>()).add(name.getValue());
+                }
+            }
+            byPrefix.forEach((prefix, candidates) ->
+                    topByPrefix.put(prefix, List.copyOf(top(candidates, MAX_LIMIT, Integer.MAX_VALUE))));
+        }
+    }
+}
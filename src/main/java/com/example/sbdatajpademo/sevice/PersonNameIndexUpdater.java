@@ -0,0 +1,115 @@
+package com.example.sbdatajpademo.sevice;
+
+import com.example.sbdatajpademo.entity.Person;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/*
+    Applies committed Person changes to PersonNameIndex.
+
+    Hibernate post-commit listeners and not a JPA @EntityListener, because
+        - @PostUpdate/@PostRemove do not know the previous name, the listeners get the old state of the entity
+        - they are called only after a successful commit, a rolled back change never reaches the index
+ */
+@Component
+public class PersonNameIndexUpdater implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final PersonNameIndex personNameIndex;
+
+    public PersonNameIndexUpdater(EntityManagerFactory entityManagerFactory, PersonNameIndex personNameIndex) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.personNameIndex = personNameIndex;
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return persister.getMappedClass() == Person.class;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Person) {
+            personNameIndex.personAdded(tenantId(event.getPersister(), event.getState()),
+                    firstName(event.getPersister(), event.getState()),
+                    lastName(event.getPersister(), event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        Object[] oldState = event.getOldState();
+        if (!(event.getEntity() instanceof Person) || oldState == null) {
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        String oldFirstName = firstName(persister, oldState);
+        String oldLastName = lastName(persister, oldState);
+        String newFirstName = firstName(persister, event.getState());
+        String newLastName = lastName(persister, event.getState());
+        if (!Objects.equals(oldFirstName, newFirstName) || !Objects.equals(oldLastName, newLastName)) {
+            // the tenant is not updatable
+            String tenantId = tenantId(persister, oldState);
+            personNameIndex.personRemoved(tenantId, oldFirstName, oldLastName);
+            personNameIndex.personAdded(tenantId, newFirstName, newLastName);
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Person) {
+            personNameIndex.personRemoved(tenantId(event.getPersister(), event.getDeletedState()),
+                    firstName(event.getPersister(), event.getDeletedState()),
+                    lastName(event.getPersister(), event.getDeletedState()));
+        }
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    private static String tenantId(EntityPersister persister, Object[] state) {
+        return (String) state[persister.getEntityMetamodel().getPropertyIndex("tenantId")];
+    }
+
+    private static String firstName(EntityPersister persister, Object[] state) {
+        return (String) state[persister.getEntityMetamodel().getPropertyIndex("firstName")];
+    }
+
+    private static String lastName(EntityPersister persister, Object[] state) {
+        return (String) state[persister.getEntityMetamodel().getPropertyIndex("lastName")];
+    }
+}
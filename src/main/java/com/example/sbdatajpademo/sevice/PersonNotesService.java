@@ -0,0 +1,132 @@
+package com.example.sbdatajpademo.sevice;
+
+import com.example.sbdatajpademo.dto.NoteSummaryDto;
+import com.example.sbdatajpademo.dto.NoteSummaryView;
+import com.example.sbdatajpademo.dto.PersonSummaryDto;
+import com.example.sbdatajpademo.dto.PersonWithNotesDto;
+import com.example.sbdatajpademo.repository.NoteRepository;
+import com.example.sbdatajpademo.repository.PersonRepository;
+import com.example.sbdatajpademo.tenant.TenantContext;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+    Persons with notes where the memory of one request does not depend on how many notes a person has.
+
+    `findByIdFetchNotes`/`findAllByIdBetweenFetchNotes` load the whole `notes` collection as entities (and a person with
+    hundreds of thousands of notes loads all of them). Here:
+        - a person comes with at most `limit` latest notes as Dto, one query more detects `hasMoreNotes`
+        - a range of persons is capped to MAX_PERSONS, their latest notes are read by one query with a lateral
+          subquery per person (`limit` + 1 rows of the (person_id, id) index each)
+        - all notes of one person are streamed to the response, never held in memory together
+ */
+@Service
+public class PersonNotesService {
+
+    public static final int MAX_NOTES = 100;
+
+    public static final int MAX_PERSONS = 100;
+
+    // flush the response every N notes, the client gets data while the query is still running
+    private static final int FLUSH_EVERY = 500;
+
+    private final PersonRepository personRepository;
+
+    private final NoteRepository noteRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    public PersonNotesService(PersonRepository personRepository, NoteRepository noteRepository,
+                              ObjectMapper objectMapper, PlatformTransactionManager transactionManager) {
+        this.personRepository = personRepository;
+        this.noteRepository = noteRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Transactional(readOnly = true)
+    public PersonWithNotesDto getPersonWithLatestNotes(Long personId, int limit) {
+        PersonSummaryDto person = personRepository.findSummaryById(personId)
+                .orElseThrow(() -> new EntityNotFoundException("Person not found"));
+        int notesLimit = notesLimit(limit);
+
+        // one more row than requested to know if there are older notes
+        List<NoteSummaryDto> notes = noteRepository.findLatestByPersonId(personId, PageRequest.of(0, notesLimit + 1));
+        return withNotes(person, notes, notesLimit);
+    }
+
+    @Transactional(readOnly = true)
+    public List<PersonWithNotesDto> getPersonsWithLatestNotes(long personId1, long personId2, int limit) {
+        List<PersonSummaryDto> persons = personRepository.findSummariesByIdBetweenOrderById(personId1, personId2,
+                PageRequest.of(0, MAX_PERSONS));
+        if (persons.isEmpty()) {
+            return List.of();
+        }
+        int notesLimit = notesLimit(limit);
+
+        Map<Long, List<NoteSummaryDto>> notesByPerson = noteRepository
+                .findLatestByPersonIds(persons.stream().map(PersonSummaryDto::id).toList(), notesLimit + 1).stream()
+                .map(n -> new NoteSummaryDto(n.getId(), n.getTitle(), n.getPersonId()))
+                .collect(Collectors.groupingBy(NoteSummaryDto::personId));
+        return persons.stream()
+                .map(p -> withNotes(p, notesByPerson.getOrDefault(p.id(), List.of()), notesLimit))
+                .toList();
+    }
+
+    /*
+        Відповідь пишеться вже після виходу з контролера (в іншому потоці), тому транзакція (з'єднання з курсором)
+        відкривається тут через TransactionTemplate і живе рівно стільки, скільки йде запис у відповідь.
+        Tenant запиту переноситься в цей потік явно, інакше сесія бачила б дані tenant-а за замовчуванням.
+     */
+    public StreamingResponseBody streamNotes(Long personId) {
+        if (!personRepository.existsById(personId)) {
+            throw new EntityNotFoundException("Person not found");
+        }
+        String tenantId = TenantContext.current();
+        return output -> TenantContext.run(tenantId, () -> readOnlyTransaction.executeWithoutResult(status -> {
+            try (JsonGenerator json = objectMapper.createGenerator(output);
+                 Stream<NoteSummaryDto> notes = noteRepository.streamByPersonId(personId)) {
+                // the servlet output stream is closed by Spring MVC
+                json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                json.writeStartArray();
+                int written = 0;
+                for (NoteSummaryDto note : (Iterable<NoteSummaryDto>) notes::iterator) {
+                    json.writeObject(note);
+                    if (++written % FLUSH_EVERY == 0) {
+                        json.flush();
+                    }
+                }
+                json.writeEndArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+
+    private static PersonWithNotesDto withNotes(PersonSummaryDto person, List<NoteSummaryDto> notes, int limit) {
+        boolean hasMoreNotes = notes.size() > limit;
+        return new PersonWithNotesDto(person.id(), person.firstName(), person.lastName(), person.age(),
+                hasMoreNotes ? List.copyOf(notes.subList(0, limit)) : notes, hasMoreNotes);
+    }
+
+    private static int notesLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_NOTES));
+    }
+}
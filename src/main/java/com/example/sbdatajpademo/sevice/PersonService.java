@@ -0,0 +1,127 @@
+package com.example.sbdatajpademo.sevice;
+
+import com.example.sbdatajpademo.dto.NoteRequestDto;
+import com.example.sbdatajpademo.dto.PersonDto;
+import com.example.sbdatajpademo.dto.PersonRequestDto;
+import com.example.sbdatajpademo.dto.PersonWithAllNotesDto;
+import com.example.sbdatajpademo.entity.AggregateType;
+import com.example.sbdatajpademo.entity.EventType;
+import com.example.sbdatajpademo.entity.Note;
+import com.example.sbdatajpademo.entity.Person;
+import com.example.sbdatajpademo.repository.NoteRepository;
+import com.example.sbdatajpademo.repository.PersonRepository;
+import com.example.sbdatajpademo.tenant.TenantKey;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+public class PersonService {
+
+    private final PersonRepository personRepository;
+
+    private final NoteRepository noteRepository;
+
+    private final OutboxService outboxService;
+
+    private final SyncService syncService;
+
+    private final SingleFlight<TenantKey<Long>, PersonWithAllNotesDto> personWithNotesCalls;
+
+    private final SingleFlight<TenantKey<String>, List<PersonDto>> notesCountCalls;
+
+    public PersonService(PersonRepository personRepository, NoteRepository noteRepository,
+                         OutboxService outboxService, SyncService syncService, MeterRegistry meterRegistry) {
+        this.personRepository = personRepository;
+        this.noteRepository = noteRepository;
+        this.outboxService = outboxService;
+        this.syncService = syncService;
+        this.personWithNotesCalls = new SingleFlight<>("person-with-notes", meterRegistry);
+        this.notesCountCalls = new SingleFlight<>("persons-with-notes-count", meterRegistry);
+    }
+
+    /*
+        Ці два методи навмисно без @Transactional: транзакція (і з'єднання з пулу) відкривалась би ще до SingleFlight,
+        тобто кожен запит, який чекає на чужий результат, все одно тримав би з'єднання. Транзакцію відкриває
+        тільки репозиторій у того запиту, який реально виконує SQL.
+        Ключ містить tenant: однакові запити різних tenant-ів не можуть отримати чужий результат.
+        Іншим потокам віддається незмінний Dto, а не entity: entity належить EntityManager-у того запиту,
+        який виконав SQL, і не може використовуватись з інших потоків. JSON у Dto такий самий, як у Person.
+     */
+    public PersonWithAllNotesDto getPersonByIdFetchNotes(Long personId) {
+        return personWithNotesCalls.execute(TenantKey.of(personId), () -> {
+            Person person = personRepository.findByIdFetchNotes(personId);
+            if (person == null) {
+                throw new EntityNotFoundException("Person not found");
+            }
+            return new PersonWithAllNotesDto(person.getId(), person.getFirstName(), person.getLastName(),
+                    person.getAge(), person.getUpdatedAt(),
+                    person.getNotes().stream()
+                            .map(note -> new PersonWithAllNotesDto.NoteEntry(note.getId(), note.getTitle(),
+                                    note.getUpdatedAt()))
+                            .toList());
+        });
+    }
+
+    public List<PersonDto> findAllWithNotesCount() {
+        return notesCountCalls.execute(TenantKey.of("all"), personRepository::findAllWithNotesCount);
+    }
+
+    @Transactional
+    public Person createPerson(PersonRequestDto request) {
+        Person person = new Person();
+        person.setFirstName(request.firstName());
+        person.setLastName(request.lastName());
+        person.setAge(request.age());
+
+        personRepository.save(person);
+        outboxService.personChanged(person, EventType.CREATED);
+        return person;
+    }
+
+    @Transactional
+    public Person updatePerson(Long personId, PersonRequestDto request) {
+        Person person = getPerson(personId);
+        person.setFirstName(request.firstName());
+        person.setLastName(request.lastName());
+        person.setAge(request.age());
+
+        outboxService.personChanged(person, EventType.UPDATED);
+        return person;
+    }
+
+    @Transactional
+    public void deletePerson(Long personId) {
+        Person person = getPerson(personId);
+        // notes are removed by cascade, but consumers still need to know about each of them
+        person.getNotes().forEach(note -> {
+            outboxService.noteChanged(note, EventType.DELETED);
+            syncService.recordDeletion(AggregateType.NOTE, note.getId());
+        });
+        outboxService.personChanged(person, EventType.DELETED);
+        syncService.recordDeletion(AggregateType.PERSON, person.getId());
+
+        personRepository.delete(person);
+    }
+
+    @Transactional
+    public Note addNote(Long personId, NoteRequestDto request) {
+        Person person = getPerson(personId);
+        Note note = new Note();
+        note.setTitle(request.title());
+        person.addNote(note);
+
+        // save the note itself (not the person) so its id is generated right away for the outbox event
+        noteRepository.save(note);
+        outboxService.noteChanged(note, EventType.CREATED);
+        return note;
+    }
+
+    private Person getPerson(Long personId) {
+        return personRepository.findById(personId)
+                .orElseThrow(() -> new EntityNotFoundException("Person not found"));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.sbdatajpademo.sevice;
+
+import com.example.sbdatajpademo.dto.KeysetPageDto;
+import com.example.sbdatajpademo.dto.NoteSummaryDto;
+import com.example.sbdatajpademo.dto.PersonSummaryDto;
+import com.example.sbdatajpademo.entity.Note;
+import com.example.sbdatajpademo.entity.Person;
+import com.example.sbdatajpademo.query.KeysetQuery;
+import com.example.sbdatajpademo.repository.NoteRepository;
+import com.example.sbdatajpademo.repository.PersonRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/*
+    Generic filter/sort queries instead of a new derived method for every combination of parameters.
+    Which filters and sorts are allowed is decided by KeysetQuery, a new filter or sort key needs an index (column, id)
+    in the entity first.
+ */
+@Service
+@RequiredArgsConstructor
+public class QueryService {
+
+    private static final List<String> PERSON_SUMMARY = List.of("id", "firstName", "lastName", "age");
+
+    private static final Map<String, Function<PersonSummaryDto, ?>> PERSON_SORT_KEYS = Map.of(
+            "id", PersonSummaryDto::id,
+            "firstName", PersonSummaryDto::firstName,
+            "lastName", PersonSummaryDto::lastName,
+            "age", PersonSummaryDto::age);
+
+    private static final List<String> NOTE_SUMMARY = List.of("id", "title", "person.id");
+
+    private static final Map<String, Function<NoteSummaryDto, ?>> NOTE_SORT_KEYS = Map.of(
+            "id", NoteSummaryDto::id,
+            "title", NoteSummaryDto::title);
+
+    private final PersonRepository personRepository;
+
+    private final NoteRepository noteRepository;
+
+    @Transactional(readOnly = true)
+    public KeysetPageDto<PersonSummaryDto> queryPersons(String firstName, String lastName, Integer ageFrom,
+                                                        Integer ageTo, String sort, String cursor, int size) {
+        List<KeysetQuery.Filter<Person>> filters = new ArrayList<>();
+        if (firstName != null) {
+            filters.add(KeysetQuery.Filter.equal("firstName", firstName));
+        }
+        if (lastName != null) {
+            filters.add(KeysetQuery.Filter.equal("lastName", lastName));
+        }
+        if (ageFrom != null || ageTo != null) {
+            filters.add(KeysetQuery.Filter.between("age", ageFrom, ageTo));
+        }
+
+        KeysetQuery<Person, PersonSummaryDto> query = KeysetQuery.of(PERSON_SORT_KEYS, filters, sort, cursor, size);
+        return query.toPage(personRepository.findProjected(Person.class, query.specification(),
+                PersonSummaryDto.class, PERSON_SUMMARY, query.sort(), query.limit()));
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetPageDto<NoteSummaryDto> queryNotes(String titlePrefix, String sort, String cursor, int size) {
+        List<KeysetQuery.Filter<Note>> filters = new ArrayList<>();
+        if (titlePrefix != null && !titlePrefix.isEmpty()) {
+            filters.add(KeysetQuery.Filter.startsWith("title", titlePrefix));
+        }
+
+        KeysetQuery<Note, NoteSummaryDto> query = KeysetQuery.of(NOTE_SORT_KEYS, filters, sort, cursor, size);
+        return query.toPage(noteRepository.findProjected(Note.class, query.specification(),
+                NoteSummaryDto.class, NOTE_SUMMARY, query.sort(), query.limit()));
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.sbdatajpademo.sevice;
+
+import com.example.sbdatajpademo.dto.ChangeDto;
+import com.example.sbdatajpademo.dto.ChangesDto;
+import com.example.sbdatajpademo.dto.NoteChangeDto;
+import com.example.sbdatajpademo.dto.PersonChangeDto;
+import com.example.sbdatajpademo.entity.AggregateType;
+import com.example.sbdatajpademo.entity.DeletedRecord;
+import com.example.sbdatajpademo.repository.DeletedRecordRepository;
+import com.example.sbdatajpademo.repository.NoteRepository;
+import com.example.sbdatajpademo.repository.PersonRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+    "Changed since" sync: clients keep a cursor (since, afterId) and only download rows modified or deleted after it,
+    so the traffic depends on the number of changes and not on the size of the tables.
+
+    Both sources (live rows by updated_at and tombstones by deleted_at) are read with keyset pagination over their
+    indexes, `size + 1` rows each, and merged in memory by the same (changedAt, id) order.
+
+    updated_at/deleted_at are taken when the change is flushed, not when it commits: a transaction can commit a row
+    with a timestamp older than rows already read by a client, behind its cursor. Rows younger than
+    `sync.max-transaction-duration` are therefore not returned yet - every transaction which could still commit
+    something older has finished by then, so the cursor never moves past an uncommitted change.
+    Changes reach the clients with this delay; the setting has to be longer than the longest writing transaction.
+
+    Rows without updated_at (written before it was audited, the column is not backfilled by `ddl-auto: update`)
+    count as changed at EPOCH: a sync from EPOCH returns them first, by id, and later syncs never see them again.
+ */
+@Service
+@RequiredArgsConstructor
+public class SyncService {
+
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final Comparator<ChangeDto> CHANGE_ORDER = Comparator.comparing(ChangeDto::changedAt)
+            .thenComparing(ChangeDto::id);
+
+    private final PersonRepository personRepository;
+
+    private final NoteRepository noteRepository;
+
+    private final DeletedRecordRepository deletedRecordRepository;
+
+    @Value("${sync.max-transaction-duration:5s}")
+    private Duration maxTransactionDuration;
+
+    @Transactional(readOnly = true)
+    public ChangesDto<PersonChangeDto> getPersonChanges(Instant since, long afterId, int size) {
+        Pageable limit = limit(size);
+        Instant until = settledUntil();
+        List<PersonChangeDto> changes = new ArrayList<>(
+                personRepository.findChangedSince(since, afterId, until, limit));
+        if (!since.isAfter(Instant.EPOCH)) {
+            personRepository.findNeverUpdated(afterId, limit).forEach(p -> changes.add(
+                    new PersonChangeDto(p.id(), p.firstName(), p.lastName(), p.age(), Instant.EPOCH)));
+        }
+        deletedRecordRepository.findDeletedSince(AggregateType.PERSON, since, afterId, until, limit)
+                .forEach(d -> changes.add(PersonChangeDto.tombstone(d.getAggregateId(), d.getDeletedAt())));
+        return toPage(changes, limit.getPageSize() - 1, since, afterId);
+    }
+
+    @Transactional(readOnly = true)
+    public ChangesDto<NoteChangeDto> getNoteChanges(Instant since, long afterId, int size) {
+        Pageable limit = limit(size);
+        Instant until = settledUntil();
+        List<NoteChangeDto> changes = new ArrayList<>(noteRepository.findChangedSince(since, afterId, until, limit));
+        if (!since.isAfter(Instant.EPOCH)) {
+            noteRepository.findNeverUpdated(afterId, limit).forEach(n -> changes.add(
+                    new NoteChangeDto(n.id(), n.title(), n.personId(), Instant.EPOCH)));
+        }
+        deletedRecordRepository.findDeletedSince(AggregateType.NOTE, since, afterId, until, limit)
+                .forEach(d -> changes.add(NoteChangeDto.tombstone(d.getAggregateId(), d.getDeletedAt())));
+        return toPage(changes, limit.getPageSize() - 1, since, afterId);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordDeletion(AggregateType aggregateType, Long aggregateId) {
+        deletedRecordRepository.save(new DeletedRecord(aggregateType, aggregateId, Instant.now()));
+    }
+
+    // no transaction that is still running can commit a change older than this
+    private Instant settledUntil() {
+        return Instant.now().minus(maxTransactionDuration);
+    }
+
+    // one extra row tells whether there is a next page without a count query
+    private static Pageable limit(int size) {
+        return PageRequest.of(0, Math.max(1, Math.min(size, MAX_PAGE_SIZE)) + 1);
+    }
+
+    private static <T extends ChangeDto> ChangesDto<T> toPage(List<T> changes, int size, Instant since, long afterId) {
+        changes.sort(CHANGE_ORDER);
+        boolean hasMore = changes.size() > size;
+        List<T> page = hasMore ? List.copyOf(changes.subList(0, size)) : changes;
+        if (page.isEmpty()) {
+            return new ChangesDto<>(page, since, afterId, false);
+        }
+        T last = page.get(page.size() - 1);
+        return new ChangesDto<>(page, last.changedAt(), last.id(), hasMore);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.sbdatajpademo.slowquery;
+
+import org.aopalliance.intercept.MethodInterceptor;
+
+/*
+    The repository method which is running on the current thread, so that the SQL statements (which are executed on
+    the same thread) can be attributed to it.
+ */
+final class RepositoryMethodContext {
+
+    static final String NONE = "-";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private RepositoryMethodContext() {
+    }
+
+    static String current() {
+        String method = CURRENT.get();
+        return method != null ? method : NONE;
+    }
+
+    // nested calls (a default method calling another query) restore the outer method when they are done
+    static MethodInterceptor interceptor(Class<?> repositoryInterface) {
+        return invocation -> {
+            String previous = CURRENT.get();
+            CURRENT.set(repositoryInterface.getSimpleName() + "." + invocation.getMethod().getName());
+            try {
+                return invocation.proceed();
+            } finally {
+                if (previous != null) {
+                    CURRENT.set(previous);
+                } else {
+                    CURRENT.remove();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.sbdatajpademo.slowquery;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/*
+    GET    /actuator/slowqueries - the last slow queries with their plans, the newest first
+    DELETE /actuator/slowqueries - clears them (e.g. after an index was added)
+
+    Latency of every repository method (without the threshold) is in the metric spring.data.repository.invocations
+    {repository, method}, with a percentiles histogram, see application.yml.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+@RequiredArgsConstructor
+public class SlowQueriesEndpoint {
+
+    private final SlowQueryLog slowQueryLog;
+
+    @ReadOperation
+    public List<SlowQuery> slowQueries() {
+        return slowQueryLog.findAll();
+    }
+
+    @DeleteOperation
+    public void clear() {
+        slowQueryLog.clear();
+    }
+}
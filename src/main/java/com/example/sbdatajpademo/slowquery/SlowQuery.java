@@ -0,0 +1,11 @@
+package com.example.sbdatajpademo.slowquery;
+
+import java.time.Instant;
+
+/**
+ * @param repositoryMethod e.g. PersonRepository.findAllWithNotesCount, "-" for statements outside of repository
+ *                         methods (lazy loading in the controller)
+ * @param plan             output of EXPLAIN (ANALYZE, BUFFERS), null when it is disabled
+ */
+public record SlowQuery(Instant executedAt, String repositoryMethod, long elapsedMillis, String sql, String plan) {
+}
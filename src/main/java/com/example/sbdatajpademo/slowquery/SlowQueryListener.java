@@ -0,0 +1,142 @@
+package com.example.sbdatajpademo.slowquery;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/*
+    Called by datasource-proxy after every JDBC statement. A query or DML statement which took at least
+    `slow-query.threshold` is logged with the repository method it came from and added to SlowQueryLog.
+
+    The plan is captured asynchronously on a connection from the original (not proxied) pool:
+        - EXPLAIN (ANALYZE, BUFFERS) only for plain SELECTs, ANALYZE really executes the statement once more with the
+          same parameters. A `select ... for update/share` would take the row locks again and an UPDATE/DELETE would
+          be applied twice, so these get a plain EXPLAIN (the estimated plan, nothing is executed)
+        - read-only transaction which is rolled back, with a statement timeout
+        - one query at a time and at most QUEUE_SIZE waiting; when the queue is full the query is logged without a plan,
+          so a burst of slow queries does not double the load on an already slow database
+ */
+class SlowQueryListener implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryListener.class);
+
+    private static final int QUEUE_SIZE = 10;
+
+    // statements with a plan, not `set ...`, `call ...` etc.
+    private static final Pattern STATEMENT = Pattern.compile("^\\s*(select|with|insert|update|delete)\\b",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final Pattern LOCKING_CLAUSE = Pattern.compile(
+            "\\bfor\\s+(update|share|no\\s+key\\s+update|key\\s+share)\\b", Pattern.CASE_INSENSITIVE);
+
+    private final DataSource dataSource;
+    private final SlowQueryProperties properties;
+    private final SlowQueryLog slowQueryLog;
+    private final ThreadPoolExecutor explainExecutor;
+
+    SlowQueryListener(DataSource dataSource, SlowQueryProperties properties, SlowQueryLog slowQueryLog) {
+        this.dataSource = dataSource;
+        this.properties = properties;
+        this.slowQueryLog = slowQueryLog;
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_SIZE), runnable -> {
+                    Thread thread = new Thread(runnable, "slow-query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.getElapsedTime() < properties.getThreshold().toMillis() || execInfo.isBatch()
+                || queryInfoList.size() != 1) {
+            return;
+        }
+        QueryInfo queryInfo = queryInfoList.get(0);
+        String sql = queryInfo.getQuery();
+        if (!STATEMENT.matcher(sql).find()) {
+            return;
+        }
+
+        Instant executedAt = Instant.now();
+        String repositoryMethod = RepositoryMethodContext.current();
+        long elapsedMillis = execInfo.getElapsedTime();
+        log.warn("Slow query ({} ms) in {}: {}", elapsedMillis, repositoryMethod, sql);
+
+        if (!properties.isExplain()) {
+            slowQueryLog.add(new SlowQuery(executedAt, repositoryMethod, elapsedMillis, sql, null));
+            return;
+        }
+        List<ParameterSetOperation> parameters = queryInfo.getParametersList().isEmpty()
+                ? List.of()
+                : List.copyOf(queryInfo.getParametersList().get(0));
+        try {
+            explainExecutor.execute(() -> slowQueryLog.add(
+                    new SlowQuery(executedAt, repositoryMethod, elapsedMillis, sql, explain(sql, parameters))));
+        } catch (RejectedExecutionException e) {
+            slowQueryLog.add(new SlowQuery(executedAt, repositoryMethod, elapsedMillis, sql,
+                    "not captured, too many slow queries"));
+        }
+    }
+
+    private String explain(String sql, List<ParameterSetOperation> parameters) {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            connection.setReadOnly(true);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("set local statement_timeout = " + properties.getExplainTimeout().toMillis());
+                }
+                try (PreparedStatement statement = connection.prepareStatement(explainCommand(sql) + sql)) {
+                    // the same setString/setLong/... calls as on the original statement
+                    for (ParameterSetOperation parameter : parameters) {
+                        parameter.getMethod().invoke(statement, parameter.getArgs());
+                    }
+                    StringBuilder plan = new StringBuilder();
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            plan.append(resultSet.getString(1)).append('\n');
+                        }
+                    }
+                    return plan.toString();
+                }
+            } finally {
+                connection.rollback();
+                connection.setReadOnly(false);
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (Exception e) {
+            log.debug("EXPLAIN failed for {}", sql, e);
+            return "EXPLAIN failed: " + e.getMessage();
+        }
+    }
+
+    // a CTE can contain DML (`with d as (delete ...) select ...`), so a plain SELECT has to start with select
+    static String explainCommand(String sql) {
+        boolean plainSelect = sql.stripLeading().toLowerCase(Locale.ROOT).startsWith("select")
+                && !LOCKING_CLAUSE.matcher(sql).find();
+        return plainSelect ? "explain (analyze, buffers) " : "explain ";
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.sbdatajpademo.slowquery;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// ring buffer of the last `slow-query.capacity` slow queries, the oldest one is dropped when it is full
+@Component
+@EnableConfigurationProperties(SlowQueryProperties.class)
+public class SlowQueryLog {
+
+    private final int capacity;
+    private final Deque<SlowQuery> queries;
+
+    public SlowQueryLog(SlowQueryProperties properties) {
+        this.capacity = Math.max(1, properties.getCapacity());
+        this.queries = new ArrayDeque<>(capacity);
+    }
+
+    public synchronized void add(SlowQuery query) {
+        if (queries.size() == capacity) {
+            queries.removeFirst();
+        }
+        queries.addLast(query);
+    }
+
+    // the newest first
+    public synchronized List<SlowQuery> findAll() {
+        List<SlowQuery> result = new ArrayList<>(queries.size());
+        queries.descendingIterator().forEachRemaining(result::add);
+        return result;
+    }
+
+    public synchronized void clear() {
+        queries.clear();
+    }
+}
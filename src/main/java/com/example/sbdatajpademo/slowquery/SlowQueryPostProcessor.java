@@ -0,0 +1,53 @@
+package com.example.sbdatajpademo.slowquery;
+
+import com.example.sbdatajpademo.tenant.TenantRoutingDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+/*
+    Hooks the slow query log into the application:
+        - every repository gets an advice which remembers the running repository method (RepositoryMethodContext)
+        - every tenant pool of TenantRoutingDataSource is wrapped by datasource-proxy, which reports every statement
+          with its duration to SlowQueryListener. The DataSource bean itself is not replaced by a proxy: it keeps its
+          type, and the pools stay HikariDataSource for their metrics and health checks.
+
+    `slow-query.enabled` is checked here at runtime and not with @ConditionalOnProperty, because with AOT conditions
+    are evaluated at build time. Dependencies are looked up lazily, a BeanPostProcessor is created before other beans.
+ */
+@Component
+public class SlowQueryPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<SlowQueryProperties> properties;
+    private final ObjectProvider<SlowQueryLog> slowQueryLog;
+
+    public SlowQueryPostProcessor(ObjectProvider<SlowQueryProperties> properties,
+                                  ObjectProvider<SlowQueryLog> slowQueryLog) {
+        this.properties = properties;
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> repositoryFactoryBean) {
+            repositoryFactoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(
+                            RepositoryMethodContext.interceptor(repositoryInformation.getRepositoryInterface()))));
+        }
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof TenantRoutingDataSource dataSource && properties.getObject().isEnabled()) {
+            // the plan is captured on a connection of the same pool, without the proxy
+            dataSource.setPoolDecorator(pool -> ProxyDataSourceBuilder.create(pool)
+                    .name(beanName)
+                    .listener(new SlowQueryListener(pool, properties.getObject(), slowQueryLog.getObject()))
+                    .build());
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.sbdatajpademo.slowquery;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "slow-query")
+public class SlowQueryProperties {
+
+    private boolean enabled = true;
+
+    // statements which run at least this long are logged
+    private Duration threshold = Duration.ofMillis(200);
+
+    // how many of the last slow queries are kept for the actuator endpoint
+    private int capacity = 100;
+
+    // EXPLAIN (ANALYZE, BUFFERS) runs the query once more, so it can be switched off under heavy load
+    private boolean explain = true;
+
+    private Duration explainTimeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,52 @@
+package com.example.sbdatajpademo.tenant;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "tenancy")
+public class TenancyProperties {
+
+    // requests without the header belong to the default tenant
+    private String header = "X-Tenant-Id";
+
+    private String defaultTenant = "default";
+
+    // connections for work outside of requests: outbox relay, index rebuilds, schema update
+    private int systemPoolSize = 5;
+
+    // only these tenants are accepted, every one has its own connection pool
+    private Map<String, Tenant> tenants = new LinkedHashMap<>();
+
+    public boolean isKnown(String tenantId) {
+        return tenantId.equals(defaultTenant) || tenants.containsKey(tenantId);
+    }
+
+    public int poolSize(String tenantId) {
+        return tenant(tenantId).getPoolSize();
+    }
+
+    public int maxIndexedNames(String tenantId) {
+        return tenant(tenantId).getMaxIndexedNames();
+    }
+
+    private Tenant tenant(String tenantId) {
+        Tenant tenant = tenants.get(tenantId);
+        return tenant != null ? tenant : new Tenant();
+    }
+
+    @Getter
+    @Setter
+    public static class Tenant {
+
+        private int poolSize = 5;
+
+        // distinct first/last names of the tenant kept for autocomplete, see PersonNameIndex
+        private int maxIndexedNames = 100_000;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.sbdatajpademo.tenant;
+
+import java.util.function.Supplier;
+
+/*
+    Tenant of the current thread, set by TenantFilter for the duration of a request.
+
+    Code which runs outside of a request (scheduled jobs, startup, tests) has no tenant: its connections come from the
+    system pool (TenantRoutingDataSource) and Hibernate sees the default tenant (TenantIdentifierResolver).
+    Work handed over to another thread has to take the tenant with it, see `call`.
+ */
+public final class TenantContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TenantContext() {
+    }
+
+    // null outside of a request
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    // the previous tenant of the thread is restored when the scope is closed
+    public static Scope enter(String tenantId) {
+        String previous = CURRENT.get();
+        CURRENT.set(tenantId);
+        return () -> {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    public static <T> T call(String tenantId, Supplier<T> action) {
+        try (Scope ignored = enter(tenantId)) {
+            return action.get();
+        }
+    }
+
+    public static void run(String tenantId, Runnable action) {
+        try (Scope ignored = enter(tenantId)) {
+            action.run();
+        }
+    }
+
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
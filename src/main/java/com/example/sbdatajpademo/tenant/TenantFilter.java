@@ -0,0 +1,47 @@
+package com.example.sbdatajpademo.tenant;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/*
+    Resolves the tenant from the `tenancy.header` request header before anything touches the database
+    (the open-session-in-view EntityManager is opened later, in an interceptor). Unknown tenants are rejected,
+    a connection pool exists only for the configured ones.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class TenantFilter extends OncePerRequestFilter {
+
+    public static final String TENANT_ATTRIBUTE = TenantFilter.class.getName() + ".tenant";
+
+    private final TenancyProperties properties;
+
+    public TenantFilter(TenancyProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(properties.getHeader());
+        String tenantId = header != null && !header.isBlank() ? header.strip() : properties.getDefaultTenant();
+        if (!properties.isKnown(tenantId)) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(), "Unknown tenant");
+            return;
+        }
+
+        request.setAttribute(TENANT_ATTRIBUTE, tenantId);
+        try (TenantContext.Scope ignored = TenantContext.enter(tenantId)) {
+            chain.doFilter(request, response);
+        }
+    }
+}
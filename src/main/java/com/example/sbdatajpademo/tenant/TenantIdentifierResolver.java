@@ -0,0 +1,40 @@
+package com.example.sbdatajpademo.tenant;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/*
+    Tenant of every Hibernate session. Entities with a @TenantId attribute get it on insert and every query
+    (HQL, Criteria, Spring Data derived queries) is restricted with `tenant_id = ?`.
+    Native SQL is not restricted - such queries filter by tenant themselves.
+ */
+@Component
+public class TenantIdentifierResolver implements CurrentTenantIdentifierResolver, HibernatePropertiesCustomizer {
+
+    private final TenancyProperties properties;
+
+    public TenantIdentifierResolver(TenancyProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public String resolveCurrentTenantIdentifier() {
+        String tenantId = TenantContext.current();
+        return tenantId != null ? tenantId : properties.getDefaultTenant();
+    }
+
+    // sessions are opened per request (open-session-in-view) or per transaction, never shared between tenants
+    @Override
+    public boolean validateExistingCurrentSessions() {
+        return false;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.MULTI_TENANT_IDENTIFIER_RESOLVER, this);
+    }
+}
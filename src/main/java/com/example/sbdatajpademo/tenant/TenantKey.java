@@ -0,0 +1,9 @@
+package com.example.sbdatajpademo.tenant;
+
+// key of a cache/single-flight shared by all tenants, the same key of two tenants must not share a result
+public record TenantKey<K>(String tenantId, K key) {
+
+    public static <K> TenantKey<K> of(K key) {
+        return new TenantKey<>(TenantContext.current(), key);
+    }
+}
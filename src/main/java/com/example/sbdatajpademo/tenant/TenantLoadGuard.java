@@ -0,0 +1,53 @@
+package com.example.sbdatajpademo.tenant;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/*
+    @TenantId restricts queries, but loading by id (`find`, lazy proxies, associations) reads the row by its primary
+    key only. A row of another tenant reached this way is reported as not found instead of being returned.
+    Through a Spring Data repository the exception arrives translated (JpaObjectRetrievalFailureException),
+    GlobalExceptionHandler answers both the same way.
+ */
+@Component
+public class TenantLoadGuard implements PostLoadEventListener {
+
+    private static final String TENANT_ATTRIBUTE = "tenantId";
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public TenantLoadGuard(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    void register() {
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, this);
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        EntityPersister persister = event.getPersister();
+        Integer index = persister.getEntityMetamodel().getPropertyIndexOrNull(TENANT_ATTRIBUTE);
+        if (index == null) {
+            return;
+        }
+        Object tenantId = persister.getPropertyValue(event.getEntity(), index);
+        if (!Objects.equals(tenantId, event.getSession().getTenantIdentifier())) {
+            throw new EntityNotFoundException(persister.getMappedClass().getSimpleName() + " not found");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.sbdatajpademo.tenant;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/*
+    One Hikari pool per tenant (all of them to the same database), chosen by TenantContext for every connection.
+    A tenant which runs many slow queries waits for connections of its own pool and cannot take the connections
+    of the others. Pools exist only for configured tenants and start when their tenant asks for the first connection.
+
+    Connections of the database = sum of all tenant pool sizes + the system pool.
+
+    Connections can be taken through a decorator of every pool (e.g. the statement listener of the slow query log),
+    the pools stay Hikari pools and this stays the DataSource bean, so their metrics and health checks keep working.
+ */
+public class TenantRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    public static final String SYSTEM_POOL = "system";
+
+    private final Function<String, HikariConfig> poolConfig;
+    private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+    private volatile UnaryOperator<DataSource> poolDecorator = UnaryOperator.identity();
+
+    /**
+     * @param poolConfig configuration of the pool of a tenant, or of the system pool for {@link #SYSTEM_POOL}
+     */
+    public TenantRoutingDataSource(Function<String, HikariConfig> poolConfig) {
+        this.poolConfig = poolConfig;
+    }
+
+    /**
+     * @param poolDecorator wraps every pool started after this call, gets the Hikari pool itself
+     */
+    public void setPoolDecorator(UnaryOperator<DataSource> poolDecorator) {
+        this.poolDecorator = poolDecorator;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return pool().connections().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return pool().connections().getConnection(username, password);
+    }
+
+    @Override
+    public void close() {
+        pools.values().forEach(pool -> pool.hikari().close());
+    }
+
+    private Pool pool() {
+        String tenantId = TenantContext.current();
+        return pools.computeIfAbsent(tenantId != null ? tenantId : SYSTEM_POOL, name -> {
+            HikariDataSource hikari = new HikariDataSource(poolConfig.apply(name));
+            return new Pool(hikari, poolDecorator.apply(hikari));
+        });
+    }
+
+    private record Pool(HikariDataSource hikari, DataSource connections) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.sbdatajpademo.config;
+
+import com.example.sbdatajpademo.dto.NoteDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// the sizes and the speed of the formats are compared by DtoSerializationBenchmark (loadTest source set)
+class BinaryFormatConfigTests {
+
+    private final BinaryFormatConfig config = new BinaryFormatConfig();
+
+    private final NoteDto note = new NoteDto("Title1", "John", "Smith");
+
+    @Test
+    void smileRoundTrip() throws IOException {
+        byte[] body = roundTrip(config.smileHttpMessageConverter(new Jackson2ObjectMapperBuilder()),
+                MediaType.valueOf("application/x-jackson-smile"));
+
+        // every Smile document starts with the ":)\n" header
+        assertThat(new String(body, 0, 3)).isEqualTo(":)\n");
+    }
+
+    @Test
+    void cborRoundTrip() throws IOException {
+        byte[] body = roundTrip(config.cborHttpMessageConverter(new Jackson2ObjectMapperBuilder()),
+                MediaType.APPLICATION_CBOR);
+
+        assertThat(body[0]).isNotEqualTo((byte) '{');
+    }
+
+    private byte[] roundTrip(AbstractJackson2HttpMessageConverter converter, MediaType mediaType) throws IOException {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(note, mediaType, output);
+
+        assertThat(output.getHeaders().getContentType()).isEqualTo(mediaType);
+        assertThat(converter.read(NoteDto.class, new MockHttpInputMessage(output.getBodyAsBytes()))).isEqualTo(note);
+        return output.getBodyAsBytes();
+    }
+}
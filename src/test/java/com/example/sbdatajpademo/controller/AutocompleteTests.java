@@ -0,0 +1,73 @@
+package com.example.sbdatajpademo.controller;
+
+import com.example.sbdatajpademo.entity.Person;
+import com.example.sbdatajpademo.repository.NoteRepository;
+import com.example.sbdatajpademo.repository.PersonRepository;
+import com.example.sbdatajpademo.sevice.PersonNameIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+
+/*
+    /persons/autocomplete with PersonNameIndex kept up to date by the post-commit listener.
+    The ranking itself is tested in PersonNameIndexTests.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("querycount")
+class AutocompleteTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private PersonNameIndex personNameIndex;
+
+    private Person jane;
+
+    @BeforeEach
+    void seed() {
+        TestPersons.deleteAll(personRepository, noteRepository);
+        // the plain deletes above bypass the listener
+        personNameIndex.rebuild();
+        TestPersons.save(personRepository, "John", "Smith");
+        TestPersons.save(personRepository, "John", "Brown");
+        jane = TestPersons.save(personRepository, "Jane", "Davis");
+    }
+
+    @Test
+    void savedPersonsAreSuggestedByNumberOfPersons() throws Exception {
+        mockMvc.perform(get("/persons/autocomplete?prefix=j"))
+                .andExpect(jsonPath("$[*].name").value(contains("John", "Jane")))
+                .andExpect(jsonPath("$[0].firstNameCount").value(2));
+    }
+
+    @Test
+    void deletedPersonIsNoLongerSuggested() throws Exception {
+        mockMvc.perform(delete("/persons/" + jane.getId()));
+
+        mockMvc.perform(get("/persons/autocomplete?prefix=ja"))
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
+    @Test
+    void otherTenantDoesNotGetSuggestions() throws Exception {
+        mockMvc.perform(get("/persons/autocomplete?prefix=j").header("X-Tenant-Id", "acme"))
+                .andExpect(jsonPath("$").isEmpty());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.sbdatajpademo.controller;
+
+import com.example.sbdatajpademo.entity.Note;
+import com.example.sbdatajpademo.entity.Person;
+import com.example.sbdatajpademo.repository.NoteRepository;
+import com.example.sbdatajpademo.repository.PersonRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+    Bulk delete/retitle of notes in batches, see NoteBulkService. The querycount profile uses batches of 2,
+    so the 3 seeded notes always take more than one batch.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("querycount")
+class NoteBulkTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Person johnSmith;
+
+    @BeforeEach
+    void seed() {
+        TestPersons.deleteAll(personRepository, noteRepository);
+        johnSmith = TestPersons.save(personRepository, "John", "Smith", "Title1", "Title2");
+        TestPersons.save(personRepository, "John", "Brown", "Title3");
+    }
+
+    @Test
+    void deleteNotesOfPersonKeepsOtherNotes() throws Exception {
+        mockMvc.perform(delete("/persons/" + johnSmith.getId() + "/notes"))
+                .andExpect(jsonPath("$.affectedRows").value(2))
+                .andExpect(jsonPath("$.batches").value(1));
+
+        assertThat(noteRepository.findAll()).extracting(Note::getTitle).containsExactly("Title3");
+    }
+
+    @Test
+    void deleteNotesOlderThanReportsAffectedRowsOfAllBatches() throws Exception {
+        TestPersons.save(personRepository, "Jane", "Miller", "Title4");
+
+        // 4 notes in batches of 2
+        mockMvc.perform(delete("/notes?olderThan=" + Instant.now().plusSeconds(60)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affectedRows").value(4))
+                .andExpect(jsonPath("$.batches").value(2));
+
+        assertThat(noteRepository.count()).isZero();
+    }
+
+    @Test
+    void deleteNotesOlderThanKeepsNotesOfUnknownAge() throws Exception {
+        Instant cutoff = Instant.now().minusSeconds(3600);
+        jdbcTemplate.update("update note set updated_at = ? where title in ('Title1', 'Title2')",
+                Timestamp.from(cutoff.minusSeconds(60)));
+        // never updated through JPA, e.g. inserted by plain SQL before updated_at was audited
+        jdbcTemplate.update("update note set updated_at = null where title = 'Title3'");
+
+        mockMvc.perform(delete("/notes?olderThan=" + cutoff))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affectedRows").value(2));
+
+        assertThat(noteRepository.findAll()).extracting(Note::getTitle).containsExactly("Title3");
+    }
+
+    @Test
+    void retitleNotesReplacesThePrefix() throws Exception {
+        mockMvc.perform(patch("/notes/retitle")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"prefix\":\"Title\",\"replacement\":\"Note\"}"))
+                .andExpect(jsonPath("$.affectedRows").value(3));
+
+        assertThat(noteRepository.findAll()).extracting(Note::getTitle)
+                .containsExactlyInAnyOrder("Note1", "Note2", "Note3");
+    }
+
+    @Test
+    void retitleNotesChangesEveryNoteOnceWhenReplacementKeepsThePrefix() throws Exception {
+        // the changed titles still match `Title%`, the id keyset does not return them again
+        mockMvc.perform(patch("/notes/retitle")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"prefix\":\"Title\",\"replacement\":\"TitleX\"}"))
+                .andExpect(jsonPath("$.affectedRows").value(3))
+                .andExpect(jsonPath("$.batches").value(2));
+
+        assertThat(noteRepository.findAll()).extracting(Note::getTitle)
+                .containsExactlyInAnyOrder("TitleX1", "TitleX2", "TitleX3");
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.sbdatajpademo.controller;
+
+import com.example.sbdatajpademo.entity.Person;
+import com.example.sbdatajpademo.repository.NoteRepository;
+import com.example.sbdatajpademo.repository.PersonRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/*
+    Bounded reads of persons with notes, see PersonNotesService.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("querycount")
+class PersonNotesTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    private Person johnSmith;
+    private Person jane;
+
+    @BeforeEach
+    void seed() {
+        TestPersons.deleteAll(personRepository, noteRepository);
+        johnSmith = TestPersons.save(personRepository, "John", "Smith", "Title1", "Title2");
+        TestPersons.save(personRepository, "John", "Brown", "Title3");
+        jane = TestPersons.save(personRepository, "Jane", "Davis");
+    }
+
+    // the unbounded variant keeps the JSON of the Person entity it returned before the results were coalesced
+    @Test
+    void personWithNotesHasTheJsonOfThePersonEntity() throws Exception {
+        mockMvc.perform(get("/persons/" + johnSmith.getId() + "/with-notes"))
+                .andExpect(jsonPath("$.id").value(johnSmith.getId()))
+                .andExpect(jsonPath("$.lastName").value("Smith"))
+                .andExpect(jsonPath("$.age").value(30))
+                .andExpect(jsonPath("$.updatedAt").exists())
+                .andExpect(jsonPath("$.notes[*].title").value(containsInAnyOrder("Title1", "Title2")))
+                .andExpect(jsonPath("$.notes[0].updatedAt").exists())
+                .andExpect(jsonPath("$.notes[0].personId").doesNotExist())
+                .andExpect(jsonPath("$.hasMoreNotes").doesNotExist());
+    }
+
+    @Test
+    void personWithLatestNotesReturnsTheLatestUpToTheLimit() throws Exception {
+        mockMvc.perform(get("/persons/" + johnSmith.getId() + "/with-latest-notes?limit=1"))
+                .andExpect(jsonPath("$.notes[*].title").value(contains("Title2")))
+                .andExpect(jsonPath("$.hasMoreNotes").value(true));
+        mockMvc.perform(get("/persons/" + johnSmith.getId() + "/with-latest-notes?limit=2"))
+                .andExpect(jsonPath("$.notes[*].title").value(contains("Title2", "Title1")))
+                .andExpect(jsonPath("$.hasMoreNotes").value(false));
+    }
+
+    @Test
+    void personsByIdRangeWithLatestNotesLimitEveryPerson() throws Exception {
+        mockMvc.perform(get("/persons/by-id-range/with-latest-notes?personId1=" + johnSmith.getId()
+                        + "&personId2=" + jane.getId() + "&limit=1"))
+                .andExpect(jsonPath("$[*].lastName").value(contains("Smith", "Brown", "Davis")))
+                .andExpect(jsonPath("$[0].notes[*].title").value(contains("Title2")))
+                .andExpect(jsonPath("$[0].hasMoreNotes").value(true))
+                .andExpect(jsonPath("$[1].notes[*].title").value(contains("Title3")))
+                .andExpect(jsonPath("$[1].hasMoreNotes").value(false))
+                .andExpect(jsonPath("$[2].notes").isEmpty());
+    }
+
+    @Test
+    void notesStreamWritesAllNotesInIdOrder() throws Exception {
+        MvcResult result = mockMvc.perform(get("/persons/" + johnSmith.getId() + "/notes/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(jsonPath("$[*].title").value(contains("Title1", "Title2")));
+    }
+}
@@ -0,0 +1,498 @@
+package com.example.sbdatajpademo.controller;
+
+import com.example.sbdatajpademo.entity.Person;
+import com.example.sbdatajpademo.query.TableCountEstimator;
+import com.example.sbdatajpademo.repository.NoteRepository;
+import com.example.sbdatajpademo.repository.PersonRepository;
+import com.example.sbdatajpademo.sevice.PersonNotesService;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.io.OutputStream;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+    Every endpoint of NoteController and PersonController with the exact SQL statements it executes.
+    An extra lazy load (N+1) or an unexpected count query changes the number of statements and fails the build.
+
+    Data: John Smith (2 notes), John Brown (1 note), Jane Davis (no notes).
+    Endpoints which deliberately show the N+1 problem (e.g. /persons/by-name/without-fetch-notes) are asserted with it,
+    so that it is visible here and does not spread to other endpoints unnoticed.
+    Only statements are asserted here, what the endpoints return is tested per feature (SyncTests, NoteBulkTests, ...).
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("querycount")
+class QueryCountTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    // spied to see the plain JDBC queries of TableCountEstimator, the StatementInspector sees only Hibernate's
+    @SpyBean
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TableCountEstimator tableCountEstimator;
+
+    @Autowired
+    private PersonNotesService personNotesService;
+
+    private Person johnSmith;
+    private Person jane;
+
+    @BeforeEach
+    void seed() {
+        TestPersons.deleteAll(personRepository, noteRepository);
+        johnSmith = TestPersons.save(personRepository, "John", "Smith", "Title1", "Title2");
+        TestPersons.save(personRepository, "John", "Brown", "Title3");
+        jane = TestPersons.save(personRepository, "Jane", "Davis");
+    }
+
+    // ---------------------------------------- NoteController ----------------------------------------
+
+    @Test
+    void notesPageLoadsPersonOfEveryNoteSeparately() throws Exception {
+        List<String> sql = execute(get("/notes"));
+
+        // page is not full, so Spring Data skips the count query; Note.person is EAGER -> one select per person
+        assertThat(sql).hasSize(3);
+        assertThat(sql.get(0)).contains("from note");
+        assertThat(sql.subList(1, 3)).allMatch(s -> s.contains("from persons"));
+    }
+
+    @Test
+    void fullNotesPageRunsCountQuery() throws Exception {
+        List<String> sql = execute(get("/notes?size=2&sort=id"));
+
+        assertThat(sql).hasSize(3);
+        assertThat(sql.get(0)).contains("from note");
+        assertThat(sql.get(1)).contains("from persons");
+        assertThat(sql.get(2)).contains("count(");
+    }
+
+    @Test
+    void estimatedNotesPageSkipsCountQuery() throws Exception {
+        tableCountEstimator.invalidate("note");
+        clearInvocations(jdbcTemplate);
+        for (String url : List.of("/notes?size=2&sort=id&count=estimated",
+                "/notes/all/using-generic-dto-pageable?size=2&count=estimated")) {
+            List<String> sql = execute(get(url));
+
+            assertThat(sql).as(url).noneMatch(s -> s.contains("count("));
+        }
+        // H2 has no planner statistics: one count(*) of the estimator, cached for the second page
+        verify(jdbcTemplate, times(1))
+                .queryForObject(startsWith("select count(*) from note"), eq(Long.class), eq("default"));
+    }
+
+    @Test
+    void notesSlice() throws Exception {
+        List<String> sql = execute(get("/notes/using-slice?size=2&sort=id"));
+
+        assertThat(sql).hasSize(3);
+        assertThat(sql.get(2)).contains("count(");
+    }
+
+    @Test
+    void allNotesMappedInJava() throws Exception {
+        List<String> sql = execute(get("/notes/all"));
+
+        assertThat(sql).hasSize(3);
+        assertThat(sql.get(0)).contains("from note");
+        assertThat(sql.subList(1, 3)).allMatch(s -> s.contains("from persons"));
+    }
+
+    @Test
+    void allNotesWithDtoQueriesUseSingleJoin() throws Exception {
+        for (String url : List.of("/notes/all/using-query-with-dto", "/notes/all/using-generic-dto")) {
+            List<String> sql = execute(get(url));
+
+            assertThat(sql).as(url).hasSize(1);
+            assertThat(sql.get(0)).as(url).contains("from note").contains("join persons");
+        }
+    }
+
+    @Test
+    void allNotesOnlyTitle() throws Exception {
+        List<String> sql = execute(get("/notes/all/using-generic-dto-only-title"));
+
+        assertThat(sql).hasSize(1);
+        assertThat(sql.get(0)).contains("from note").doesNotContain("persons");
+    }
+
+    @Test
+    void notesDtoPage() throws Exception {
+        assertThat(execute(get("/notes/all/using-generic-dto-pageable"))).hasSize(1);
+
+        List<String> sql = execute(get("/notes/all/using-generic-dto-pageable?size=2"));
+        assertThat(sql).hasSize(2);
+        assertThat(sql.get(1)).contains("count(");
+    }
+
+    @Test
+    void noteChanges() throws Exception {
+        List<String> sql = execute(get("/notes/changes?since=2024-01-01T00:00:00Z"));
+
+        assertThat(sql).hasSize(2);
+        assertThat(sql.get(0)).contains("from note");
+        assertThat(sql.get(1)).contains("from deleted_record");
+    }
+
+    // the first sync also reads the rows without updated_at, see SyncService
+    @Test
+    void firstNoteChangesReadRowsWithoutUpdatedAt() throws Exception {
+        List<String> sql = execute(get("/notes/changes"));
+
+        assertThat(sql).hasSize(3);
+        assertThat(sql.get(0)).contains("from note");
+        assertThat(sql.get(1)).contains("from note").contains("is null");
+        assertThat(sql.get(2)).contains("from deleted_record");
+    }
+
+    @Test
+    void queryNotesByTitlePrefixIsOneProjectionQuery() throws Exception {
+        List<String> sql = execute(get("/notes/query?titlePrefix=Title"));
+
+        assertThat(sql).hasSize(1);
+        assertThat(sql.get(0)).contains("from note").doesNotContain("join");
+    }
+
+    @Test
+    void deleteNoteWritesOutboxEventAndTombstone() throws Exception {
+        Long noteId = noteRepository.findAll().get(0).getId();
+
+        List<String> sql = modifications(execute(delete("/notes/" + noteId)));
+
+        assertThat(sql).hasSize(3);
+        assertThat(sql.get(0)).startsWith("insert into outbox_event");
+        assertThat(sql.get(1)).startsWith("insert into deleted_record");
+        assertThat(sql.get(2)).startsWith("delete from note");
+    }
+
+    @Test
+    void updateNoteIsOneSelectAndWritesOutboxEvent() throws Exception {
+        Long noteId = noteRepository.findAll().get(0).getId();
+
+        List<String> sql = execute(put("/notes/" + noteId)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Updated\"}"));
+
+        // Note.person is EAGER and joined by findById, the response does not serialize it
+        assertThat(queries(sql)).hasSize(1);
+        assertThat(queries(sql).get(0)).contains("from note");
+        assertThat(modifications(sql)).hasSize(2);
+        assertThat(modifications(sql).get(0)).startsWith("insert into outbox_event");
+        assertThat(modifications(sql).get(1)).startsWith("update note");
+    }
+
+    // ---------------------------------------- PersonController ----------------------------------------
+
+    @Test
+    void allPersonsLoadNotesOfEveryPerson() throws Exception {
+        List<String> sql = execute(get("/persons"));
+
+        // N+1: notes are serialized from the lazy collection, one select per person
+        assertThat(sql).hasSize(1 + 3);
+        assertThat(sql.subList(1, 4)).allMatch(s -> s.contains("from note"));
+    }
+
+    @Test
+    void personsByFirstName() throws Exception {
+        assertThat(execute(get("/persons/byFirstName?firstName=John"))).hasSize(1 + 2);
+    }
+
+    @Test
+    void personById() throws Exception {
+        List<String> sql = execute(get("/persons/" + johnSmith.getId()));
+
+        assertThat(sql).hasSize(2);
+        assertThat(sql.get(0)).contains("from persons");
+        assertThat(sql.get(1)).contains("from note");
+    }
+
+    @Test
+    void personWithNotesIsFetchedInOneQuery() throws Exception {
+        List<String> sql = execute(get("/persons/" + johnSmith.getId() + "/with-notes"));
+
+        assertThat(sql).hasSize(1);
+        assertThat(sql.get(0)).contains("join note");
+    }
+
+    @Test
+    void personsByIdRangeAreFetchedInOneQuery() throws Exception {
+        List<String> sql = execute(get("/persons/by-id-range?personId1=" + johnSmith.getId() + "&personId2=" + jane.getId()));
+
+        assertThat(sql).hasSize(1);
+        assertThat(sql.get(0)).contains("join note");
+    }
+
+    @Test
+    void personWithLatestNotesReadsOnlyTheLimit() throws Exception {
+        List<String> sql = execute(get("/persons/" + johnSmith.getId() + "/with-latest-notes?limit=1"));
+
+        assertThat(sql).hasSize(2);
+        assertThat(sql.get(0)).contains("from persons").doesNotContain("note");
+        assertThat(sql.get(1)).contains("from note").doesNotContain("join");
+    }
+
+    @Test
+    void personsByIdRangeWithLatestNotesUseOneNotesQuery() throws Exception {
+        List<String> sql = execute(get("/persons/by-id-range/with-latest-notes?personId1=" + johnSmith.getId()
+                + "&personId2=" + jane.getId() + "&limit=1"));
+
+        assertThat(sql).hasSize(2);
+        assertThat(sql.get(1)).contains("lateral").doesNotContain("row_number()");
+    }
+
+    @Test
+    void personsByNameWithoutFetchNotes() throws Exception {
+        assertThat(execute(get("/persons/by-name/without-fetch-notes?firstName=John"))).hasSize(1 + 2);
+    }
+
+    @Test
+    void personsByNameWithFetchNotesAreFetchedInOneQuery() throws Exception {
+        List<String> sql = execute(get("/persons/by-name/with-fetch-notes?firstName=John"));
+
+        assertThat(sql).hasSize(1);
+        assertThat(sql.get(0)).contains("join note");
+    }
+
+    @Test
+    void personsWithNotesCount() throws Exception {
+        List<String> sql = execute(get("/persons/with-notes-count"));
+
+        assertThat(sql).hasSize(1);
+        assertThat(sql.get(0)).contains("count(").contains("group by");
+    }
+
+    @Test
+    void personChanges() throws Exception {
+        List<String> sql = execute(get("/persons/changes?since=2024-01-01T00:00:00Z"));
+
+        assertThat(sql).hasSize(2);
+        assertThat(sql.get(0)).contains("from persons");
+        assertThat(sql.get(1)).contains("from deleted_record");
+    }
+
+    // the first sync also reads the rows without updated_at, see SyncService
+    @Test
+    void firstPersonChangesReadRowsWithoutUpdatedAt() throws Exception {
+        List<String> sql = execute(get("/persons/changes"));
+
+        assertThat(sql).hasSize(3);
+        assertThat(sql.get(0)).contains("from persons");
+        assertThat(sql.get(1)).contains("from persons").contains("is null");
+        assertThat(sql.get(2)).contains("from deleted_record");
+    }
+
+    @Test
+    void queryPersonsReadsEveryPageWithOneQuery() throws Exception {
+        List<String> sql = execute(get("/persons/query?sort=firstName&size=2"));
+
+        assertThat(sql).hasSize(1);
+        assertThat(sql.get(0)).contains("from persons").contains("order by").doesNotContain("offset");
+
+        String cursor = JsonPath.read(mockMvc.perform(get("/persons/query?sort=firstName&size=2"))
+                .andReturn().getResponse().getContentAsString(), "$.nextCursor");
+        sql = execute(get("/persons/query?sort=firstName&size=2&cursor=" + cursor));
+
+        assertThat(sql).hasSize(1);
+    }
+
+    @Test
+    void queryPersonsRejectsFilterWithoutIndexBeforeQuerying() throws Exception {
+        SqlStatementRecorder.start();
+        try {
+            mockMvc.perform(get("/persons/query?firstName=John&sort=age")).andExpect(status().isBadRequest());
+            mockMvc.perform(get("/persons/query?firstName=John&lastName=Smith")).andExpect(status().isBadRequest());
+            assertThat(SqlStatementRecorder.statements()).isEmpty();
+        } finally {
+            SqlStatementRecorder.stop();
+        }
+    }
+
+    @Test
+    void autocompleteDoesNotQueryDatabase() throws Exception {
+        assertThat(execute(get("/persons/autocomplete?prefix=J"))).isEmpty();
+    }
+
+    @Test
+    void createPersonWritesOutboxEventInTheSameRequest() throws Exception {
+        List<String> sql = modifications(execute(post("/persons")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"Emily\",\"lastName\":\"Moore\",\"age\":25}")));
+
+        assertThat(sql).hasSize(2);
+        assertThat(sql.get(0)).startsWith("insert into persons");
+        assertThat(sql.get(1)).startsWith("insert into outbox_event");
+    }
+
+    @Test
+    void updatePersonLoadsNotesOnlyForTheResponse() throws Exception {
+        List<String> sql = execute(put("/persons/" + johnSmith.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"firstName\":\"John\",\"lastName\":\"Smithson\",\"age\":31}"));
+
+        // the returned entity serializes its lazy notes
+        assertThat(queries(sql)).hasSize(2);
+        assertThat(queries(sql).get(0)).contains("from persons");
+        assertThat(queries(sql).get(1)).contains("from note");
+        assertThat(modifications(sql)).hasSize(2);
+        assertThat(modifications(sql).get(0)).startsWith("insert into outbox_event");
+        assertThat(modifications(sql).get(1)).startsWith("update persons");
+    }
+
+    @Test
+    void deletePersonDeletesEveryNoteSeparately() throws Exception {
+        List<String> sql = execute(delete("/persons/" + johnSmith.getId()));
+
+        assertThat(queries(sql)).hasSize(2);
+        assertThat(queries(sql).get(1)).contains("from note");
+        // N+1 of the cascade: an event, a tombstone and a delete per note, see DELETE /persons/{personId}/notes
+        assertThat(sql).filteredOn(s -> s.startsWith("insert into outbox_event")).hasSize(1 + 2);
+        assertThat(sql).filteredOn(s -> s.startsWith("insert into deleted_record")).hasSize(1 + 2);
+        assertThat(sql).filteredOn(s -> s.startsWith("delete from note")).hasSize(2);
+        assertThat(sql).filteredOn(s -> s.startsWith("delete from persons")).hasSize(1);
+    }
+
+    @Test
+    void addNoteDoesNotLoadOtherNotes() throws Exception {
+        List<String> sql = execute(post("/persons/" + johnSmith.getId() + "/notes")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Title4\"}"));
+
+        // Person.notes is the inverse side, adding to it does not initialize the collection
+        assertThat(queries(sql)).hasSize(1);
+        assertThat(queries(sql).get(0)).contains("from persons");
+        assertThat(modifications(sql)).hasSize(2);
+        assertThat(modifications(sql).get(0)).startsWith("insert into note");
+        assertThat(modifications(sql).get(1)).startsWith("insert into outbox_event");
+    }
+
+    @Test
+    void notesStreamIsOneQuery() throws Exception {
+        // the body is written on an async thread, the request thread only checks that the person exists
+        SqlStatementRecorder.start();
+        try {
+            mockMvc.perform(get("/persons/" + johnSmith.getId() + "/notes/stream"))
+                    .andExpect(request().asyncStarted())
+                    .andReturn().getAsyncResult();
+            assertThat(SqlStatementRecorder.statements()).hasSize(1);
+        } finally {
+            SqlStatementRecorder.stop();
+        }
+
+        // the same body written on this thread, so that its statements are recorded
+        SqlStatementRecorder.start();
+        try {
+            personNotesService.streamNotes(johnSmith.getId()).writeTo(OutputStream.nullOutputStream());
+            List<String> sql = SqlStatementRecorder.statements();
+
+            assertThat(sql).hasSize(1 + 1);
+            assertThat(sql.get(1)).contains("from note").contains("order by");
+        } finally {
+            SqlStatementRecorder.stop();
+        }
+    }
+
+    // ---------------------------------------- bulk operations ----------------------------------------
+
+    @Test
+    void deleteNotesOfPersonIsOneDeleteStatement() throws Exception {
+        List<String> sql = execute(delete("/persons/" + johnSmith.getId() + "/notes"));
+
+        // one outbox event and one tombstone per note, the notes themselves with one statement
+        assertThat(modifications(sql)).filteredOn(s -> s.startsWith("delete")).hasSize(1);
+        assertThat(modifications(sql).get(modifications(sql).size() - 1)).startsWith("delete from note");
+        // the batch is locked by its select; a full batch (2 notes) is followed by one more, empty select
+        assertThat(queries(sql)).filteredOn(s -> s.contains("from note")).hasSize(2)
+                .allMatch(s -> s.contains("for update"));
+    }
+
+    @Test
+    void retitleNotesIsOneUpdateStatementPerBatch() throws Exception {
+        List<String> sql = modifications(execute(patch("/notes/retitle")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"prefix\":\"Title\",\"replacement\":\"Note\"}")));
+
+        // 3 notes in batches of 2
+        assertThat(sql).filteredOn(s -> s.startsWith("update")).hasSize(2);
+    }
+
+    // ---------------------------------------- tenants ----------------------------------------
+
+    @Test
+    void otherTenantDoesNotSeeSeededPersons() throws Exception {
+        List<String> sql = execute(get("/persons/byFirstName?firstName=John").header("X-Tenant-Id", "acme"));
+
+        assertThat(sql).hasSize(1);
+        assertThat(sql.get(0)).contains("tenant_id");
+    }
+
+    @Test
+    void unknownTenantIsRejectedBeforeQuerying() throws Exception {
+        SqlStatementRecorder.start();
+        try {
+            mockMvc.perform(get("/persons").header("X-Tenant-Id", "unknown"))
+                    .andExpect(status().isBadRequest());
+            assertThat(SqlStatementRecorder.statements()).isEmpty();
+        } finally {
+            SqlStatementRecorder.stop();
+        }
+    }
+
+    private List<String> execute(MockHttpServletRequestBuilder request) throws Exception {
+        SqlStatementRecorder.start();
+        try {
+            mockMvc.perform(request).andExpect(status().isOk());
+            return SqlStatementRecorder.statements();
+        } finally {
+            SqlStatementRecorder.stop();
+        }
+    }
+
+    // selects only, without the sequence calls
+    private static List<String> queries(List<String> sql) {
+        return sql.stream()
+                .filter(s -> s.startsWith("select") && !s.contains("next value for"))
+                .toList();
+    }
+
+    // insert/update/delete only, sequence calls depend on the id allocation and are not interesting here
+    private static List<String> modifications(List<String> sql) {
+        return sql.stream()
+                .filter(s -> s.startsWith("insert") || s.startsWith("update") || s.startsWith("delete"))
+                .toList();
+    }
+}
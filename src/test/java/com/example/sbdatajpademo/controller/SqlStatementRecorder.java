@@ -0,0 +1,36 @@
+package com.example.sbdatajpademo.controller;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    Records every SQL statement Hibernate prepares on the current thread between start() and stop().
+    Thread-bound, so statements of background jobs (e.g. the outbox relay) never end up in a test's recording.
+ */
+public class SqlStatementRecorder implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+    public static void start() {
+        STATEMENTS.set(new ArrayList<>());
+    }
+
+    public static List<String> statements() {
+        return List.copyOf(STATEMENTS.get());
+    }
+
+    public static void stop() {
+        STATEMENTS.remove();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = STATEMENTS.get();
+        if (statements != null) {
+            statements.add(sql.toLowerCase());
+        }
+        return sql;
+    }
+}
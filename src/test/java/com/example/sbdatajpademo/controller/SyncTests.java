@@ -0,0 +1,120 @@
+package com.example.sbdatajpademo.controller;
+
+import com.example.sbdatajpademo.repository.NoteRepository;
+import com.example.sbdatajpademo.repository.PersonRepository;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/*
+    /notes/changes and /persons/changes: what a client following the cursor gets, see SyncService.
+    The statements of these endpoints are asserted in QueryCountTests.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("querycount")
+class SyncTests {
+
+    // tombstones of notes deleted by other tests are in the same tables
+    private static final String LIVE_TITLES = "$.changes[?(@.deleted == false)].title";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        TestPersons.deleteAll(personRepository, noteRepository);
+        TestPersons.save(personRepository, "John", "Smith", "Title1", "Title2");
+        TestPersons.save(personRepository, "John", "Brown", "Title3");
+    }
+
+    /*
+        A transaction flushes a note before Title2 but commits after a client has read Title2: the client must still
+        get it, so changes younger than sync.max-transaction-duration are held back until no such commit is possible.
+     */
+    @Test
+    void noteChangesDoNotSkipLateCommits() throws Exception {
+        Instant now = Instant.now();
+        setNoteUpdatedAt("Title1", now.minusSeconds(3600));
+        setNoteUpdatedAt("Title3", now.minusSeconds(3600));
+        setNoteUpdatedAt("Title2", now.minusSeconds(1));
+
+        String first = mockMvc.perform(get("/notes/changes")).andReturn().getResponse().getContentAsString();
+        assertThat(JsonPath.<List<String>>read(first, LIVE_TITLES)).containsExactly("Title1", "Title3");
+
+        // the late commit, with an older timestamp than Title2; then both become older than the window
+        TestPersons.save(personRepository, "Late", "Writer", "Late");
+        setNoteUpdatedAt("Late", now.minusSeconds(62));
+        setNoteUpdatedAt("Title2", now.minusSeconds(61));
+
+        String second = mockMvc.perform(get("/notes/changes")
+                        .param("since", JsonPath.<String>read(first, "$.nextSince"))
+                        .param("afterId", JsonPath.read(first, "$.nextAfterId").toString()))
+                .andReturn().getResponse().getContentAsString();
+        assertThat(JsonPath.<List<String>>read(second, LIVE_TITLES)).containsExactly("Late", "Title2");
+    }
+
+    // rows written before updated_at was audited have no timestamp, a full sync must still return them
+    @Test
+    void firstSyncReturnsRowsWithoutUpdatedAt() throws Exception {
+        Instant hourAgo = Instant.now().minusSeconds(3600);
+        setNoteUpdatedAt("Title1", hourAgo);
+        setNoteUpdatedAt("Title2", null);
+        setNoteUpdatedAt("Title3", hourAgo);
+
+        String first = mockMvc.perform(get("/notes/changes").param("size", "1"))
+                .andReturn().getResponse().getContentAsString();
+        assertThat(JsonPath.<List<String>>read(first, LIVE_TITLES)).containsExactly("Title2");
+        assertThat(JsonPath.<String>read(first, "$.nextSince")).isEqualTo("1970-01-01T00:00:00Z");
+
+        String second = mockMvc.perform(get("/notes/changes")
+                        .param("since", JsonPath.<String>read(first, "$.nextSince"))
+                        .param("afterId", JsonPath.read(first, "$.nextAfterId").toString()))
+                .andReturn().getResponse().getContentAsString();
+        assertThat(JsonPath.<List<String>>read(second, LIVE_TITLES)).containsExactly("Title1", "Title3");
+
+        String later = mockMvc.perform(get("/notes/changes")
+                        .param("since", JsonPath.<String>read(second, "$.nextSince"))
+                        .param("afterId", JsonPath.read(second, "$.nextAfterId").toString()))
+                .andReturn().getResponse().getContentAsString();
+        assertThat(JsonPath.<List<String>>read(later, LIVE_TITLES)).isEmpty();
+    }
+
+    @Test
+    void firstSyncReturnsPersonsWithoutUpdatedAt() throws Exception {
+        jdbcTemplate.update("update persons set updated_at = ? where last_name = 'Smith'",
+                Timestamp.from(Instant.now().minusSeconds(3600)));
+        jdbcTemplate.update("update persons set updated_at = null where last_name = 'Brown'");
+
+        String changes = mockMvc.perform(get("/persons/changes")).andReturn().getResponse().getContentAsString();
+        assertThat(JsonPath.<List<String>>read(changes, "$.changes[?(@.deleted == false)].lastName"))
+                .containsExactly("Brown", "Smith");
+    }
+
+    private void setNoteUpdatedAt(String title, Instant updatedAt) {
+        jdbcTemplate.update("update note set updated_at = ? where title = ?",
+                updatedAt != null ? Timestamp.from(updatedAt) : null, title);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.sbdatajpademo.controller;
+
+import com.example.sbdatajpademo.entity.Person;
+import com.example.sbdatajpademo.repository.NoteRepository;
+import com.example.sbdatajpademo.repository.PersonRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/*
+    Isolation of tenants (X-Tenant-Id): the seeded persons belong to the default tenant, `acme` must not see them.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("querycount")
+class TenantTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    private Person johnSmith;
+
+    @BeforeEach
+    void seed() {
+        TestPersons.deleteAll(personRepository, noteRepository);
+        johnSmith = TestPersons.save(personRepository, "John", "Smith", "Title1", "Title2");
+    }
+
+    @Test
+    void otherTenantDoesNotSeePersonsInQueries() throws Exception {
+        mockMvc.perform(get("/persons/byFirstName?firstName=John").header("X-Tenant-Id", "acme"))
+                .andExpect(jsonPath("$").isEmpty());
+        mockMvc.perform(get("/persons/byFirstName?firstName=John"))
+                .andExpect(jsonPath("$[0].lastName").value("Smith"));
+    }
+
+    @Test
+    void otherTenantCannotLoadPersonById() throws Exception {
+        // find by id reads the row by its primary key only, TenantLoadGuard rejects it after loading
+        mockMvc.perform(get("/persons/" + johnSmith.getId()).header("X-Tenant-Id", "acme"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("Person not found"));
+        mockMvc.perform(get("/persons/" + johnSmith.getId() + "/with-notes").header("X-Tenant-Id", "acme"))
+                .andExpect(content().string("Person not found"));
+    }
+
+    @Test
+    void unknownTenantIsRejected() throws Exception {
+        mockMvc.perform(get("/persons").header("X-Tenant-Id", "unknown"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.sbdatajpademo.controller;
+
+import com.example.sbdatajpademo.entity.Note;
+import com.example.sbdatajpademo.entity.Person;
+import com.example.sbdatajpademo.repository.NoteRepository;
+import com.example.sbdatajpademo.repository.PersonRepository;
+
+/*
+    Test data of the controller tests, saved through the repository in the default tenant (no request, no header),
+    so the post-commit listeners (e.g. PersonNameIndexUpdater) see it as any other change.
+ */
+final class TestPersons {
+
+    private TestPersons() {
+    }
+
+    static void deleteAll(PersonRepository personRepository, NoteRepository noteRepository) {
+        noteRepository.deleteAllInBatch();
+        personRepository.deleteAllInBatch();
+    }
+
+    static Person save(PersonRepository personRepository, String firstName, String lastName, String... noteTitles) {
+        Person person = new Person();
+        person.setFirstName(firstName);
+        person.setLastName(lastName);
+        person.setAge(30);
+        for (String title : noteTitles) {
+            Note note = new Note();
+            note.setTitle(title);
+            person.addNote(note);
+        }
+        return personRepository.save(person);
+    }
+}
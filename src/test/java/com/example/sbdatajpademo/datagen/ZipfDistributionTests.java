@@ -0,0 +1,56 @@
+package com.example.sbdatajpademo.datagen;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class ZipfDistributionTests {
+
+    private static final int SAMPLES = 200_000;
+
+    @Test
+    void samplesFollowTheRankFrequencies() {
+        int[] counts = sample(new ZipfDistribution(100, 1.0), 100);
+
+        // P(k) = 1 / (k + 1) / H(100), H(100) ~ 5.187
+        double harmonic = 0;
+        for (int k = 1; k <= 100; k++) {
+            harmonic += 1.0 / k;
+        }
+        assertThat(counts[0] / (double) SAMPLES).isCloseTo(1 / harmonic, within(0.01));
+        assertThat(counts[1] / (double) SAMPLES).isCloseTo(1 / harmonic / 2, within(0.01));
+        assertThat(counts[0]).isGreaterThan(counts[9]).isGreaterThan(counts[99]);
+    }
+
+    @Test
+    void exponentZeroIsUniform() {
+        int[] counts = sample(new ZipfDistribution(10, 0.0), 10);
+
+        for (int count : counts) {
+            assertThat(count / (double) SAMPLES).isCloseTo(0.1, within(0.01));
+        }
+    }
+
+    @Test
+    void samplesStayWithinTheRanks() {
+        ZipfDistribution single = new ZipfDistribution(1, 1.2);
+        SplittableRandom random = new SplittableRandom(1);
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(single.sample(random)).isZero();
+        }
+    }
+
+    private static int[] sample(ZipfDistribution distribution, int ranks) {
+        // fixed seed, the test is deterministic
+        SplittableRandom random = new SplittableRandom(42);
+        int[] counts = new int[ranks];
+        for (int i = 0; i < SAMPLES; i++) {
+            counts[distribution.sample(random)]++;
+        }
+        return counts;
+    }
+}
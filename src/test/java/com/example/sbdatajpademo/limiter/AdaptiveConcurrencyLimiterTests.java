@@ -0,0 +1,81 @@
+package com.example.sbdatajpademo.limiter;
+
+import com.example.sbdatajpademo.limiter.AdaptiveConcurrencyLimiter.Permit;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTests {
+
+    private static final long FAST = Duration.ofMillis(1).toNanos();
+    private static final long SLOW = Duration.ofMillis(10).toNanos();
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 50, 0);
+
+    @Test
+    void limitGrowsWhileLatencyStaysAtTheMinimum() throws InterruptedException {
+        for (int i = 0; i < 20; i++) {
+            fullLoad(FAST);
+        }
+
+        assertThat(limiter.getLimit()).isGreaterThan(10);
+    }
+
+    @Test
+    void limitNeverExceedsTheMaximum() throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            fullLoad(FAST);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(50);
+    }
+
+    @Test
+    void limitShrinksWhenLatencyGrows() throws InterruptedException {
+        fullLoad(FAST);
+        int limitAtMinimumLatency = limiter.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            fullLoad(SLOW);
+        }
+
+        assertThat(limiter.getLimit()).isLessThan(limitAtMinimumLatency);
+        assertThat(limiter.getLimit()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void limitIsKeptWhenItIsNotUsed() throws InterruptedException {
+        for (int i = 0; i < 20; i++) {
+            assertThat(limiter.tryAcquire()).isEqualTo(Permit.ACQUIRED);
+            limiter.release(FAST);
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void requestAboveTheLimitIsRejectedAfterTheQueueTime() throws InterruptedException {
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquire()).isEqualTo(Permit.ACQUIRED);
+        }
+
+        assertThat(limiter.tryAcquire()).isEqualTo(Permit.REJECTED);
+        assertThat(limiter.getInFlight()).isEqualTo(10);
+
+        limiter.release(FAST);
+        assertThat(limiter.tryAcquire()).isEqualTo(Permit.ACQUIRED);
+    }
+
+    // as many requests in flight as the limit allows, all of them with the same latency
+    private void fullLoad(long rttNanos) throws InterruptedException {
+        int limit = limiter.getLimit();
+        for (int i = 0; i < limit; i++) {
+            assertThat(limiter.tryAcquire()).isNotEqualTo(Permit.REJECTED);
+        }
+        for (int i = 0; i < limit; i++) {
+            limiter.release(rttNanos);
+        }
+    }
+}
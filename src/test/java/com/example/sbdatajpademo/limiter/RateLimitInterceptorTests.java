@@ -0,0 +1,133 @@
+package com.example.sbdatajpademo.limiter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitInterceptorTests {
+
+    private static final String PATTERN = "/persons/{personId}/with-notes";
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void clientOverItsRateGets429() throws Exception {
+        RateLimitInterceptor interceptor = interceptor(10, 1);
+
+        assertThat(handle(interceptor, "client-1").getStatus()).isEqualTo(200);
+        MockHttpServletResponse rejected = handle(interceptor, "client-1");
+
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(rejected("client_rate")).isEqualTo(1);
+        // another client has its own bucket
+        assertThat(handle(interceptor, "client-2").getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void endpointOverItsRateGets429AndTheClientKeepsItsToken() throws Exception {
+        RateLimitInterceptor interceptor = interceptor(1, 1);
+
+        assertThat(handle(interceptor, "client-1").getStatus()).isEqualTo(200);
+        assertThat(handle(interceptor, "client-2").getStatus()).isEqualTo(429);
+        assertThat(handle(interceptor, "client-2").getStatus()).isEqualTo(429);
+
+        // rejected by the endpoint bucket both times: without the refund the second request would have found the
+        // single token of client-2 spent
+        assertThat(rejected("endpoint_rate")).isEqualTo(2);
+        assertThat(rejected("client_rate")).isZero();
+    }
+
+    @Test
+    void requestOverTheConcurrencyLimitGets503() throws Exception {
+        RateLimitInterceptor interceptor = interceptor(10, 10);
+
+        MockHttpServletRequest first = request("client-1");
+        assertThat(interceptor.preHandle(first, new MockHttpServletResponse(), null)).isTrue();
+        MockHttpServletResponse rejected = handle(interceptor, "client-2");
+
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected("concurrency")).isEqualTo(1);
+        assertThat(inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void permitIsReleasedAfterCompletion() throws Exception {
+        RateLimitInterceptor interceptor = interceptor(10, 10);
+
+        MockHttpServletRequest first = request("client-1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        interceptor.preHandle(first, response, null);
+        interceptor.afterCompletion(first, response, null, null);
+        // a second call for the same request must not release another permit
+        interceptor.afterCompletion(first, response, null, null);
+
+        assertThat(inFlight()).isZero();
+        assertThat(handle(interceptor, "client-2").getStatus()).isEqualTo(200);
+        assertThat(inFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void otherEndpointsAreNotLimited() throws Exception {
+        RateLimitInterceptor interceptor = interceptor(1, 1);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/persons");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/persons");
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(interceptor.preHandle(request, new MockHttpServletResponse(), null)).isTrue();
+        }
+    }
+
+    /*
+        Buckets which practically do not refill during a test, one slot of concurrency and no queueing, so a second
+        request in flight is rejected right away.
+     */
+    private RateLimitInterceptor interceptor(int burst, int clientBurst) {
+        RateLimitProperties.Endpoint endpoint = new RateLimitProperties.Endpoint();
+        endpoint.setPattern(PATTERN);
+        endpoint.setRate(0.001);
+        endpoint.setBurst(burst);
+        endpoint.setClientRate(0.001);
+        endpoint.setClientBurst(clientBurst);
+
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setEndpoints(List.of(endpoint));
+        properties.getConcurrency().setInitialLimit(1);
+        properties.getConcurrency().setMinLimit(1);
+        properties.getConcurrency().setMaxQueueTime(Duration.ZERO);
+        return new RateLimitInterceptor(properties, meterRegistry);
+    }
+
+    private static MockHttpServletRequest request(String clientId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/persons/1/with-notes");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, PATTERN);
+        request.addHeader("X-Client-Id", clientId);
+        return request;
+    }
+
+    // a request which completes right away, as the dispatcher does after the handler
+    private static MockHttpServletResponse handle(RateLimitInterceptor interceptor, String clientId) throws Exception {
+        MockHttpServletRequest request = request(clientId);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        if (interceptor.preHandle(request, response, null)) {
+            interceptor.afterCompletion(request, response, null, null);
+        }
+        return response;
+    }
+
+    private double rejected(String reason) {
+        return meterRegistry.counter("rate_limit.rejected", "endpoint", PATTERN, "reason", reason).count();
+    }
+
+    private double inFlight() {
+        return meterRegistry.get("rate_limit.concurrency.in_flight").tag("endpoint", PATTERN).gauge().value();
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.sbdatajpademo.limiter;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTests {
+
+    private final AtomicLong now = new AtomicLong();
+
+    // 10 tokens per second, bursts of 2
+    private final TokenBucket bucket = new TokenBucket(10, 2, now::get);
+
+    @Test
+    void burstIsLimitedByTheCapacity() {
+        assertThat(bucket.tryConsume()).isTrue();
+        assertThat(bucket.tryConsume()).isTrue();
+        assertThat(bucket.tryConsume()).isFalse();
+    }
+
+    @Test
+    void tokensAreRefilledWithTheRate() {
+        drain();
+
+        advance(Duration.ofMillis(99));
+        assertThat(bucket.tryConsume()).isFalse();
+
+        advance(Duration.ofMillis(1));
+        assertThat(bucket.tryConsume()).isTrue();
+        assertThat(bucket.tryConsume()).isFalse();
+    }
+
+    @Test
+    void refillNeverExceedsTheCapacity() {
+        drain();
+
+        advance(Duration.ofMinutes(1));
+
+        assertThat(bucket.tryConsume()).isTrue();
+        assertThat(bucket.tryConsume()).isTrue();
+        assertThat(bucket.tryConsume()).isFalse();
+    }
+
+    @Test
+    void refundGivesTheTokenBackUpToTheCapacity() {
+        drain();
+
+        bucket.refund();
+        bucket.refund();
+        bucket.refund();
+
+        assertThat(bucket.tryConsume()).isTrue();
+        assertThat(bucket.tryConsume()).isTrue();
+        assertThat(bucket.tryConsume()).isFalse();
+    }
+
+    @Test
+    void bucketIsIdleWhenFullAndNotUsed() {
+        long idle = Duration.ofMinutes(5).toNanos();
+        bucket.tryConsume();
+
+        advance(Duration.ofMinutes(4));
+        assertThat(bucket.isIdle(idle)).isFalse();
+
+        advance(Duration.ofMinutes(1));
+        assertThat(bucket.isIdle(idle)).isTrue();
+    }
+
+    private void drain() {
+        while (bucket.tryConsume()) {
+            // take every token of the burst
+        }
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+}
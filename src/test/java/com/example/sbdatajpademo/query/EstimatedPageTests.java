@@ -0,0 +1,54 @@
+package com.example.sbdatajpademo.query;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EstimatedPageTests {
+
+    @Test
+    void lastPageHasExactTotalWithoutEstimate() {
+        EstimatedPage<String> page = EstimatedPage.of(new SliceImpl<>(List.of("a", "b"), PageRequest.of(1, 5), false),
+                () -> {
+                    throw new AssertionError("the estimate is not needed");
+                });
+
+        assertThat(page.getTotalElements()).isEqualTo(7);
+        assertThat(page.isTotalApproximate()).isFalse();
+        assertThat(page.isLast()).isTrue();
+    }
+
+    @Test
+    void pageWithMoreRowsUsesTheEstimate() {
+        EstimatedPage<String> page = EstimatedPage.of(new SliceImpl<>(List.of("a", "b"), PageRequest.of(0, 2), true),
+                () -> 1000);
+
+        assertThat(page.getTotalElements()).isEqualTo(1000);
+        assertThat(page.isTotalApproximate()).isTrue();
+        assertThat(page.hasNext()).isTrue();
+    }
+
+    @Test
+    void staleEstimateIsRaisedAboveWhatWasRead() {
+        EstimatedPage<String> page = EstimatedPage.of(new SliceImpl<>(List.of("a", "b"), PageRequest.of(3, 2), true),
+                () -> 3);
+
+        // rows 7 and 8 were read and one more exists
+        assertThat(page.getTotalElements()).isEqualTo(9);
+        assertThat(page.hasNext()).isTrue();
+    }
+
+    @Test
+    void pageAfterTheEndIsCappedToTheOffset() {
+        EstimatedPage<String> page = EstimatedPage.of(new SliceImpl<>(List.of(), PageRequest.of(10, 2), false),
+                () -> 1000);
+
+        assertThat(page.getTotalElements()).isEqualTo(20);
+        assertThat(page.isTotalApproximate()).isTrue();
+        assertThat(page.getContent()).isEmpty();
+    }
+}
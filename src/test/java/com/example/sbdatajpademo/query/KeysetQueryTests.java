@@ -0,0 +1,105 @@
+package com.example.sbdatajpademo.query;
+
+import com.example.sbdatajpademo.dto.KeysetPageDto;
+import com.example.sbdatajpademo.dto.PersonSummaryDto;
+import com.example.sbdatajpademo.entity.Person;
+import com.example.sbdatajpademo.exception.InvalidQueryException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KeysetQueryTests {
+
+    private static final Map<String, Function<PersonSummaryDto, ?>> SORT_KEYS = Map.of(
+            "id", PersonSummaryDto::id,
+            "lastName", PersonSummaryDto::lastName,
+            "age", PersonSummaryDto::age);
+
+    @Test
+    void filteredAttributeBecomesTheSort() {
+        KeysetQuery<Person, PersonSummaryDto> query = KeysetQuery.of(SORT_KEYS,
+                List.of(KeysetQuery.Filter.equal("lastName", "Smith")), null, null, 20);
+
+        assertThat(query.sort()).isEqualTo(Sort.by(Sort.Direction.ASC, "lastName", "id"));
+    }
+
+    @Test
+    void sortByIdOnlyWithoutFilter() {
+        KeysetQuery<Person, PersonSummaryDto> query = KeysetQuery.of(SORT_KEYS, List.of(), "id,desc", null, 20);
+
+        assertThat(query.sort()).isEqualTo(Sort.by(Sort.Direction.DESC, "id"));
+    }
+
+    @Test
+    void queriesWithoutAnIndexAreRejected() {
+        assertThatThrownBy(() -> KeysetQuery.of(SORT_KEYS, List.of(KeysetQuery.Filter.equal("lastName", "Smith"),
+                KeysetQuery.Filter.between("age", 20, 30)), null, null, 20))
+                .isInstanceOf(InvalidQueryException.class)
+                .hasMessageContaining("cannot be combined");
+        assertThatThrownBy(() -> KeysetQuery.of(SORT_KEYS, List.of(), "firstName", null, 20))
+                .isInstanceOf(InvalidQueryException.class)
+                .hasMessageContaining("not supported");
+        assertThatThrownBy(() -> KeysetQuery.of(SORT_KEYS, List.of(KeysetQuery.Filter.equal("lastName", "Smith")),
+                "age", null, 20))
+                .isInstanceOf(InvalidQueryException.class)
+                .hasMessageContaining("can only be sorted by 'lastName'");
+        assertThatThrownBy(() -> KeysetQuery.Filter.between("age", 30, 20))
+                .isInstanceOf(InvalidQueryException.class);
+    }
+
+    @Test
+    void pageSizeIsCapped() {
+        assertThat(KeysetQuery.of(SORT_KEYS, List.of(), null, null, 10_000).limit()).isEqualTo(KeysetQuery.MAX_SIZE + 1);
+        assertThat(KeysetQuery.of(SORT_KEYS, List.of(), null, null, 0).limit()).isEqualTo(2);
+    }
+
+    @Test
+    void fullPageHasCursorOfItsLastRow() {
+        KeysetQuery<Person, PersonSummaryDto> query = KeysetQuery.of(SORT_KEYS, List.of(), "age,desc", null, 2);
+
+        KeysetPageDto<PersonSummaryDto> page = query.toPage(List.of(person(5, 40), person(3, 35), person(9, 30)));
+
+        assertThat(page.content()).extracting(PersonSummaryDto::id).containsExactly(5L, 3L);
+        assertThat(page.hasMore()).isTrue();
+        assertThat(KeysetCursor.decode(page.nextCursor())).isEqualTo(new KeysetCursor("age,desc", "35", 3));
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        KeysetQuery<Person, PersonSummaryDto> query = KeysetQuery.of(SORT_KEYS, List.of(), "age", null, 2);
+
+        KeysetPageDto<PersonSummaryDto> page = query.toPage(List.of(person(5, 40)));
+
+        assertThat(page.hasMore()).isFalse();
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void cursorOfAnotherSortIsRejected() {
+        String cursor = new KeysetCursor("age,asc", "35", 3).encode();
+
+        assertThatThrownBy(() -> KeysetQuery.of(SORT_KEYS, List.of(), "age,desc", cursor, 2))
+                .isInstanceOf(InvalidQueryException.class)
+                .hasMessageContaining("different sort");
+        assertThatThrownBy(() -> KeysetQuery.of(SORT_KEYS, List.of(), "age", "not a cursor", 2))
+                .isInstanceOf(InvalidQueryException.class)
+                .hasMessage("Invalid cursor");
+    }
+
+    @Test
+    void cursorSurvivesValuesWithSeparators() {
+        KeysetCursor cursor = new KeysetCursor("lastName,asc", "O'Brien\nJr", 42);
+
+        assertThat(KeysetCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    private static PersonSummaryDto person(long id, int age) {
+        return new PersonSummaryDto(id, "First" + id, "Last" + id, age);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.sbdatajpademo.query;
+
+import com.example.sbdatajpademo.tenant.TenancyProperties;
+import com.example.sbdatajpademo.tenant.TenantIdentifierResolver;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.OngoingStubbing;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TableCountEstimatorTests {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+    private final TableCountEstimator estimator =
+            new TableCountEstimator(jdbcTemplate, new TenantIdentifierResolver(new TenancyProperties()));
+
+    @Test
+    void withoutPostgresTheCountIsCached() {
+        database("H2");
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any())).thenReturn(42L);
+
+        assertThat(estimator.estimate("note")).isEqualTo(42);
+        assertThat(estimator.estimate("note")).isEqualTo(42);
+
+        verify(jdbcTemplate, times(1)).queryForObject(startsWith("select count(*) from note"), eq(Long.class),
+                eq("default"));
+        verify(jdbcTemplate, never()).query(contains("pg_class"), any(ResultSetExtractor.class), any(), any(), any());
+    }
+
+    @Test
+    void plannerEstimateNeedsNoCount() {
+        database("PostgreSQL");
+        plannerEstimate().thenReturn(1234.4);
+
+        assertThat(estimator.estimate("note")).isEqualTo(1234);
+
+        verify(jdbcTemplate, never()).queryForObject(anyString(), eq(Long.class), any());
+    }
+
+    @Test
+    void failedPlannerLookupIsRetriedByTheNextRefresh() {
+        database("PostgreSQL");
+        plannerEstimate()
+                .thenThrow(new QueryTimeoutException("canceling statement due to statement timeout"))
+                .thenReturn(1234.0);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any())).thenReturn(42L);
+
+        assertThat(estimator.estimate("note")).isEqualTo(42);
+        estimator.refresh();
+
+        assertThat(estimator.estimate("note")).isEqualTo(1234);
+    }
+
+    @Test
+    void invalidatedCountIsReadAgain() {
+        database("H2");
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any())).thenReturn(42L, 40L);
+
+        estimator.estimate("note");
+        estimator.invalidate("note");
+
+        assertThat(estimator.estimate("note")).isEqualTo(40);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void database(String productName) {
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenReturn(productName);
+    }
+
+    @SuppressWarnings("unchecked")
+    private OngoingStubbing<Object> plannerEstimate() {
+        return when(jdbcTemplate.query(contains("pg_class"), any(ResultSetExtractor.class), any(), any(), any()));
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.sbdatajpademo.sevice;
+
+import com.example.sbdatajpademo.dto.OutboxEventDto;
+import com.example.sbdatajpademo.entity.AggregateType;
+import com.example.sbdatajpademo.entity.EventType;
+import com.example.sbdatajpademo.tenant.TenancyProperties;
+import com.example.sbdatajpademo.tenant.TenantIdentifierResolver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxRelayTests {
+
+    private static final int BATCH_SIZE = 2;
+
+    private final OutboxService outboxService = mock(OutboxService.class);
+
+    private final List<OutboxEventDto> outbox = new ArrayList<>();
+
+    private final List<RecordingEmitter> emitters = new ArrayList<>();
+
+    private final OutboxRelay relay =
+            new OutboxRelay(outboxService, new TenantIdentifierResolver(new TenancyProperties())) {
+                @Override
+                SseEmitter newEmitter() {
+                    RecordingEmitter emitter = new RecordingEmitter();
+                    emitters.add(emitter);
+                    return emitter;
+                }
+            };
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(relay, "batchSize", BATCH_SIZE);
+        when(outboxService.findPublishedAfter(anyLong(), anyInt())).thenAnswer(invocation -> {
+            long position = invocation.getArgument(0);
+            int batchSize = invocation.getArgument(1);
+            return outbox.stream().filter(e -> e.position() > position).limit(batchSize).toList();
+        });
+        when(outboxService.findLastPosition()).thenAnswer(invocation -> (long) outbox.size());
+    }
+
+    @AfterEach
+    void tearDown() {
+        relay.stop();
+    }
+
+    @Test
+    void eventsAreDeliveredInOrderOfTheirPosition() {
+        publish(AggregateType.NOTE, 5);
+        relay.subscribe(AggregateType.NOTE, 0L);
+
+        relay.relay();
+
+        assertThat(emitters.get(0).ids).containsExactly(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void outboxIsReadInBatchesFromTheSmallestOffset() {
+        publish(AggregateType.NOTE, 5);
+        relay.subscribe(AggregateType.NOTE, 3L);
+        relay.subscribe(AggregateType.NOTE, 1L);
+
+        relay.relay();
+
+        var calls = inOrder(outboxService);
+        calls.verify(outboxService).findPublishedAfter(1L, BATCH_SIZE);
+        calls.verify(outboxService).findPublishedAfter(3L, BATCH_SIZE);
+        calls.verify(outboxService).findPublishedAfter(5L, BATCH_SIZE);
+        verify(outboxService, times(3)).findPublishedAfter(anyLong(), anyInt());
+        assertThat(emitters.get(0).ids).containsExactly(4L, 5L);
+        assertThat(emitters.get(1).ids).containsExactly(2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void subscriberResumesFromItsOffset() {
+        publish(AggregateType.NOTE, 3);
+        relay.subscribe(AggregateType.NOTE, 0L);
+        relay.relay();
+
+        // the client reconnects with the id of the last event it has seen
+        long lastEventId = emitters.get(0).ids.get(emitters.get(0).ids.size() - 1);
+        publish(AggregateType.NOTE, 2);
+        relay.subscribe(AggregateType.NOTE, lastEventId);
+        relay.relay();
+
+        assertThat(emitters.get(1).ids).containsExactly(4L, 5L);
+    }
+
+    @Test
+    void subscriberWithoutOffsetGetsOnlyNewEvents() {
+        publish(AggregateType.NOTE, 3);
+        relay.subscribe(AggregateType.NOTE, null);
+
+        publish(AggregateType.NOTE, 1);
+        relay.relay();
+
+        assertThat(emitters.get(0).ids).containsExactly(4L);
+    }
+
+    @Test
+    void subscriberGetsOnlyEventsOfItsAggregateAndTenant() {
+        publish(AggregateType.NOTE, 1);
+        publish(AggregateType.PERSON, 1);
+        outbox.add(event(outbox.size() + 1, "acme", AggregateType.NOTE));
+        publish(AggregateType.NOTE, 1);
+        relay.subscribe(AggregateType.NOTE, 0L);
+
+        relay.relay();
+
+        assertThat(emitters.get(0).ids).containsExactly(1L, 4L);
+    }
+
+    private void publish(AggregateType aggregateType, int count) {
+        long first = outbox.size() + 1;
+        LongStream.range(first, first + count).forEach(position ->
+                outbox.add(event(position, "default", aggregateType)));
+    }
+
+    private static OutboxEventDto event(long position, String tenantId, AggregateType aggregateType) {
+        return new OutboxEventDto(position, tenantId, aggregateType, position, EventType.UPDATED, "{}",
+                Instant.EPOCH);
+    }
+
+    /*
+        A real emitter is not connected to a response outside of a request, this one records the ids of the sent
+        events instead.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final List<Long> ids = new ArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            String event = builder.build().iterator().next().getData().toString();
+            ids.add(Long.parseLong(event.substring("id:".length(), event.indexOf('\n'))));
+        }
+    }
+}
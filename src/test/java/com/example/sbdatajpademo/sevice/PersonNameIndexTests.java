@@ -0,0 +1,112 @@
+package com.example.sbdatajpademo.sevice;
+
+import com.example.sbdatajpademo.dto.NameSuggestionDto;
+import com.example.sbdatajpademo.exception.InvalidQueryException;
+import com.example.sbdatajpademo.tenant.TenancyProperties;
+import com.example.sbdatajpademo.tenant.TenantContext;
+import com.example.sbdatajpademo.tenant.TenantIdentifierResolver;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// changes only (personAdded/personRemoved), rebuild() needs the database and is covered by AutocompleteTests
+class PersonNameIndexTests {
+
+    private static final String TENANT = "default";
+
+    private final TenancyProperties tenancyProperties = new TenancyProperties();
+
+    private final PersonNameIndex index =
+            new PersonNameIndex(null, new TenantIdentifierResolver(tenancyProperties), tenancyProperties);
+
+    @Test
+    void firstAndLastNamesAreRankedByNumberOfPersons() {
+        index.personAdded(TENANT, "John", "Smith");
+        index.personAdded(TENANT, "John", "Brown");
+        index.personAdded(TENANT, "Jane", "Johnson");
+
+        assertThat(index.suggest("jo", 10)).containsExactly(
+                new NameSuggestionDto("John", 2, 0),
+                new NameSuggestionDto("Johnson", 0, 1));
+        assertThat(index.suggest(" J ", 10)).extracting(NameSuggestionDto::name)
+                .containsExactly("John", "Jane", "Johnson");
+    }
+
+    @Test
+    void removedPersonsLowerTheRankAndDropTheName() {
+        index.personAdded(TENANT, "John", "Smith");
+        index.personAdded(TENANT, "Jane", "Smith");
+        index.personRemoved(TENANT, "John", "Smith");
+
+        assertThat(index.suggest("j", 10)).extracting(NameSuggestionDto::name).containsExactly("Jane");
+        assertThat(index.suggest("smi", 10)).containsExactly(new NameSuggestionDto("Smith", 0, 1));
+    }
+
+    @Test
+    void nameDemotedOutOfAFullShortPrefixListIsReplaced() {
+        // 50 names with 2 persons fill the precomputed list of "a", "a50" with 1 person is outside of it
+        for (int i = 0; i < PersonNameIndex.MAX_LIMIT; i++) {
+            index.personAdded(TENANT, "a" + i, null);
+            index.personAdded(TENANT, "a" + i, null);
+        }
+        index.personAdded(TENANT, "a50", null);
+        assertThat(index.suggest("a", PersonNameIndex.MAX_LIMIT)).extracting(NameSuggestionDto::name)
+                .doesNotContain("a50");
+
+        index.personRemoved(TENANT, "a0", null);
+        index.personRemoved(TENANT, "a0", null);
+
+        List<NameSuggestionDto> top = index.suggest("a", PersonNameIndex.MAX_LIMIT);
+        assertThat(top).hasSize(PersonNameIndex.MAX_LIMIT);
+        assertThat(top).extracting(NameSuggestionDto::name).contains("a50").doesNotContain("a0");
+        assertThat(top.get(top.size() - 1).name()).isEqualTo("a50");
+    }
+
+    @Test
+    void limitIsCapped() {
+        for (int i = 0; i < PersonNameIndex.MAX_LIMIT + 10; i++) {
+            index.personAdded(TENANT, "name" + i, null);
+        }
+
+        assertThat(index.suggest("n", 1000)).hasSize(PersonNameIndex.MAX_LIMIT);
+        assertThat(index.suggest("name", 1000)).hasSize(PersonNameIndex.MAX_LIMIT);
+        assertThat(index.suggest("name", 0)).hasSize(1);
+    }
+
+    @Test
+    void tenantsDoNotSeeEachOthersNames() {
+        index.personAdded("acme", "John", "Smith");
+
+        assertThat(index.suggest("jo", 10)).isEmpty();
+        try (TenantContext.Scope ignored = TenantContext.enter("acme")) {
+            assertThat(index.suggest("jo", 10)).extracting(NameSuggestionDto::name).containsExactly("John");
+        }
+    }
+
+    @Test
+    void fullTenantIndexLeavesNewNamesOutButKeepsCounting() {
+        TenancyProperties.Tenant acme = new TenancyProperties.Tenant();
+        acme.setMaxIndexedNames(2);
+        tenancyProperties.getTenants().put("acme", acme);
+
+        index.personAdded("acme", "John", "Smith");
+        index.personAdded("acme", "Jane", "Smith");
+        index.personAdded("acme", "John", null);
+        index.personAdded(TENANT, "Jane", "Smith");
+
+        try (TenantContext.Scope ignored = TenantContext.enter("acme")) {
+            assertThat(index.suggest("j", 10)).containsExactly(new NameSuggestionDto("John", 2, 0));
+            assertThat(index.suggest("s", 10)).containsExactly(new NameSuggestionDto("Smith", 0, 2));
+        }
+        // the limit is per tenant
+        assertThat(index.suggest("j", 10)).extracting(NameSuggestionDto::name).containsExactly("Jane");
+    }
+
+    @Test
+    void blankPrefixIsRejected() {
+        assertThatThrownBy(() -> index.suggest(" ", 10)).isInstanceOf(InvalidQueryException.class);
+    }
+}
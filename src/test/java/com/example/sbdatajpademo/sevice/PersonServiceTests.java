@@ -0,0 +1,93 @@
+package com.example.sbdatajpademo.sevice;
+
+import com.example.sbdatajpademo.dto.PersonWithAllNotesDto;
+import com.example.sbdatajpademo.entity.Person;
+import com.example.sbdatajpademo.repository.PersonRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PersonServiceTests {
+
+    private final PersonRepository personRepository = mock(PersonRepository.class);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final PersonService personService =
+            new PersonService(personRepository, null, null, null, meterRegistry);
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentReadsOfTheSamePersonRunOneQuery() throws Exception {
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch releaseQuery = new CountDownLatch(1);
+        when(personRepository.findByIdFetchNotes(1L)).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            assertThat(releaseQuery.await(5, TimeUnit.SECONDS)).isTrue();
+            return person(1L);
+        });
+
+        Future<PersonWithAllNotesDto> first = executor.submit(() -> personService.getPersonByIdFetchNotes(1L));
+        assertThat(queryStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<PersonWithAllNotesDto> second = executor.submit(() -> personService.getPersonByIdFetchNotes(1L));
+        awaitCalls("coalesced", 1);
+        releaseQuery.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isSameAs(second.get(5, TimeUnit.SECONDS));
+        verify(personRepository, times(1)).findByIdFetchNotes(1L);
+        assertThat(calls("executed")).isEqualTo(1);
+        assertThat(calls("coalesced")).isEqualTo(1);
+    }
+
+    @Test
+    void sequentialReadsRunTheirOwnQueries() {
+        when(personRepository.findByIdFetchNotes(1L)).thenAnswer(invocation -> person(1L));
+
+        personService.getPersonByIdFetchNotes(1L);
+        personService.getPersonByIdFetchNotes(1L);
+
+        verify(personRepository, times(2)).findByIdFetchNotes(1L);
+        assertThat(calls("executed")).isEqualTo(2);
+        assertThat(calls("coalesced")).isZero();
+    }
+
+    private double calls(String result) {
+        return meterRegistry.counter("single_flight.calls", "name", "person-with-notes", "result", result).count();
+    }
+
+    // the second caller has no other visible state while it waits for the running query
+    private void awaitCalls(String result, double count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (calls(result) < count) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    private static Person person(Long id) {
+        Person person = new Person();
+        person.setId(id);
+        person.setFirstName("John");
+        person.setLastName("Smith");
+        return person;
+    }
+}
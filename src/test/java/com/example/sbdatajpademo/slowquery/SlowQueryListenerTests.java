@@ -0,0 +1,34 @@
+package com.example.sbdatajpademo.slowquery;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SlowQueryListenerTests {
+
+    private static final String ANALYZE = "explain (analyze, buffers) ";
+    private static final String ESTIMATE = "explain ";
+
+    @Test
+    void plainSelectIsAnalyzed() {
+        assertThat(SlowQueryListener.explainCommand("  select n.id from note n where n.title like ?"))
+                .isEqualTo(ANALYZE);
+    }
+
+    @Test
+    void lockingSelectIsNotExecutedAgain() {
+        assertThat(SlowQueryListener.explainCommand("select n.id from note n where n.id > ? for update"))
+                .isEqualTo(ESTIMATE);
+        assertThat(SlowQueryListener.explainCommand("select n.id from note n FOR NO KEY UPDATE skip locked"))
+                .isEqualTo(ESTIMATE);
+        assertThat(SlowQueryListener.explainCommand("select p.id from persons p for share")).isEqualTo(ESTIMATE);
+    }
+
+    @Test
+    void modifyingStatementsAreNotExecutedAgain() {
+        assertThat(SlowQueryListener.explainCommand("delete from note where id in (?, ?)")).isEqualTo(ESTIMATE);
+        assertThat(SlowQueryListener.explainCommand("update note set title = ? where id = ?")).isEqualTo(ESTIMATE);
+        assertThat(SlowQueryListener.explainCommand("with d as (delete from note returning id) select count(*) from d"))
+                .isEqualTo(ESTIMATE);
+    }
+}